@@ -1,50 +1,761 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Kind of change recorded in an account's ledger
+enum TransactionType {
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_IN,
+    TRANSFER_OUT
+}
+
+// Outcome of a deposit or withdrawal
+enum TransactionStatus {
+    COMPLETED,
+    INVALID_AMOUNT,
+    INSUFFICIENT_FUNDS,
+    UNKNOWN_ACCOUNT,
+    SAME_ACCOUNT,
+    BALANCE_LIMIT
+}
+
+// One entry of an account's append-only ledger; amounts are in cents
+class Transaction {
+    private final TransactionType type;
+    private final long amountCents;
+    private final long balanceAfterCents;
+    private final long timestamp;
+
+    public Transaction(TransactionType type, long amountCents, long balanceAfterCents, long timestamp) {
+        this.type = type;
+        this.amountCents = amountCents;
+        this.balanceAfterCents = balanceAfterCents;
+        this.timestamp = timestamp;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public long getBalanceAfterCents() {
+        return balanceAfterCents;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
+
+// Receives a record for every balance change, while the account is locked
+interface TransactionJournalListener {
+    void recorded(TransactionType type, long amountCents, long balanceAfterCents, long timestamp);
+}
+
+// Totals for the transactions in a date range
+class AccountStatement {
+    private final long from;
+    private final long to;
+    private final int transactionCount;
+    private final long creditsCents;
+    private final long debitsCents;
+    private final long openingBalanceCents;
+    private final long closingBalanceCents;
+
+    public AccountStatement(long from, long to, int transactionCount, long creditsCents, long debitsCents,
+                            long openingBalanceCents, long closingBalanceCents) {
+        this.from = from;
+        this.to = to;
+        this.transactionCount = transactionCount;
+        this.creditsCents = creditsCents;
+        this.debitsCents = debitsCents;
+        this.openingBalanceCents = openingBalanceCents;
+        this.closingBalanceCents = closingBalanceCents;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    public long getCreditsCents() {
+        return creditsCents;
+    }
+
+    public long getDebitsCents() {
+        return debitsCents;
+    }
+
+    public long getOpeningBalanceCents() {
+        return openingBalanceCents;
+    }
+
+    public long getClosingBalanceCents() {
+        return closingBalanceCents;
+    }
+}
+
+// Binary, memory-mapped journal of every balance change of one account.
+// Records are fixed-size (timestamp, type, amount, balance after) and timestamps never go
+// backwards, so date-range queries binary-search the mapped file and read it in place instead
+// of loading it onto the heap. The header holds the magic number, the checkpointed record count
+// (offset 8) and the opening balance (offset 16); the current balance is the one stored in the
+// last record. Every CHECKPOINT_INTERVAL records the header's count is updated and the mapping is
+// forced to disk; on open, records written after the last checkpoint are found by scanning
+// forward until the first empty slot.
+class TransactionJournal implements TransactionJournalListener, Closeable {
+    private static final int MAGIC = 0x41544d4a;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKPOINT_INTERVAL = 1024;
+    private static final long INITIAL_CAPACITY = 1 << 16;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+    private volatile long count;
+    private final long openingBalanceCents;
+    private long lastTimestamp;
+
+    private TransactionJournal(FileChannel channel, long openingBalanceCents) {
+        this.channel = channel;
+        this.openingBalanceCents = openingBalanceCents;
+    }
+
+    // Open or create a journal; a new journal starts from the given balance
+    public static TransactionJournal open(Path file, long openingBalanceCents) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (created) {
+            header.putInt(0, MAGIC);
+            header.putLong(8, 0);
+            header.putLong(16, openingBalanceCents);
+            header.force();
+        } else if (header.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a transaction journal: " + file);
+        }
+        TransactionJournal journal = new TransactionJournal(channel, header.getLong(16));
+        journal.recover(header.getLong(8));
+        return journal;
+    }
+
+    private void recover(long checkpointedCount) throws IOException {
+        long capacity = Math.max(INITIAL_CAPACITY, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        map(capacity);
+        long recovered = checkpointedCount;
+        while (recovered < capacity && buffer.getInt(offset(recovered) + 8) != 0) {
+            recovered++;
+        }
+        count = recovered;
+        lastTimestamp = recovered == 0 ? 0 : timestampAt(recovered - 1);
+    }
+
+    private void map(long capacity) throws IOException {
+        long size = HEADER_SIZE + capacity * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Transaction journal is full");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static int offset(long index) {
+        return (int) (HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    public long getTransactionCount() {
+        return count;
+    }
+
+    // Balance after the last recorded transaction
+    public long getBalanceCents() {
+        long n = count;
+        return n == 0 ? openingBalanceCents : buffer.getLong(offset(n - 1) + 24);
+    }
+
+    @Override
+    public synchronized void recorded(TransactionType type, long amountCents, long balanceAfterCents, long timestamp) {
+        try {
+            long index = count;
+            if (offset(index + 1) > buffer.capacity()) {
+                map((buffer.capacity() - HEADER_SIZE) / RECORD_SIZE * 2);
+            }
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            int at = offset(index);
+            buffer.putLong(at, lastTimestamp);
+            buffer.putLong(at + 16, amountCents);
+            buffer.putLong(at + 24, balanceAfterCents);
+            // The type goes last: a non-zero type marks the slot as written
+            buffer.putInt(at + 8, type.ordinal() + 1);
+            count = index + 1;
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to transaction journal", e);
+        }
+    }
+
+    // Force the records to disk, then record their count in the header and force that too
+    public synchronized void checkpoint() {
+        buffer.force();
+        buffer.putLong(8, count);
+        buffer.force();
+    }
+
+    private long timestampAt(long index) {
+        return buffer.getLong(offset(index));
+    }
+
+    // Index of the first record at or after the given time
+    private long firstAtOrAfter(MappedByteBuffer view, long n, long time) {
+        long low = 0;
+        long high = n;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (view.getLong(offset(mid)) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Summarize transactions with from <= timestamp <= to (milliseconds since the epoch)
+    public AccountStatement statement(long from, long to) {
+        long n = count;
+        MappedByteBuffer view = buffer;
+        long first = firstAtOrAfter(view, n, from);
+        long opening = first == 0 ? openingBalanceCents : view.getLong(offset(first - 1) + 24);
+        long closing = opening;
+        long credits = 0;
+        long debits = 0;
+        int transactions = 0;
+        for (long i = first; i < n; i++) {
+            int at = offset(i);
+            if (view.getLong(at) > to) {
+                break;
+            }
+            long amount = view.getLong(at + 16);
+            TransactionType type = TYPES[view.getInt(at + 8) - 1];
+            if (type == TransactionType.DEPOSIT || type == TransactionType.TRANSFER_IN) {
+                credits += amount;
+            } else {
+                debits += amount;
+            }
+            closing = view.getLong(at + 24);
+            transactions++;
+        }
+        return new AccountStatement(from, to, transactions, credits, debits, opening, closing);
+    }
+
+    // Visit each transaction in the range without materializing them
+    public void forEach(long from, long to, TransactionJournalListener visitor) {
+        long n = count;
+        MappedByteBuffer view = buffer;
+        for (long i = firstAtOrAfter(view, n, from); i < n; i++) {
+            int at = offset(i);
+            long timestamp = view.getLong(at);
+            if (timestamp > to) {
+                break;
+            }
+            visitor.recorded(TYPES[view.getInt(at + 8) - 1], view.getLong(at + 16), view.getLong(at + 24), timestamp);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        checkpoint();
+        channel.close();
+    }
+}
 
 // Class representing the user's bank account
+// Money is kept as a whole number of cents so repeated operations do not drift, and every change
+// is applied under the account's own lock together with its ledger entry, so concurrent terminals
+// always see the ledger and balance agree. Reading the balance does not take the lock.
 class BankAccount {
-    private double balance;
+    private final String accountId;
+    private volatile long balanceCents;
+    private final List<Transaction> ledger;
+    private TransactionJournalListener journal;
+
+    // Largest balance, and largest amount, in cents: up to 2^53 a double still holds every whole
+    // cent, so amounts typed as dollars convert exactly and balances never overflow a long
+    static final long MAX_CENTS = 1L << 53;
+    // What toCents() returns for an amount that is not a number or is out of range
+    static final long INVALID_CENTS = Long.MIN_VALUE;
+
+    // Taken first when two distinct accounts tie on both ID and identity hash, so their
+    // relative lock order is fixed by this lock instead
+    private static final Object TIE_LOCK = new Object();
+
+    private static final MetricCounter[] WITHDRAWALS = new MetricCounter[TransactionStatus.values().length];
+    private static final MetricHistogram WITHDRAWAL_LATENCY = Metrics.sampledHistogram("atm_withdrawal_latency_nanos");
+
+    static {
+        for (TransactionStatus status : TransactionStatus.values()) {
+            WITHDRAWALS[status.ordinal()] = Metrics.counter(
+                    "atm_withdrawals_total{status=\"" + status.name().toLowerCase(Locale.ROOT) + "\"}");
+        }
+    }
 
     // Constructor to initialize the account with a starting balance
-    public BankAccount(double initialBalance) {
-        balance = initialBalance;
+    public BankAccount(String accountId, double initialBalance) {
+        this.accountId = accountId;
+        balanceCents = toCents(initialBalance);
+        if (balanceCents == INVALID_CENTS) {
+            throw new IllegalArgumentException("Invalid initial balance: " + initialBalance);
+        }
+        ledger = new ArrayList<>();
     }
 
-    // Method to add funds to the account
-    public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("You have successfully deposited: $" + amount);
-        } else {
-            System.out.println("Deposit amount must be greater than zero.");
+    // Create an account whose balance is recovered from, and whose changes are written to, a journal
+    public static BankAccount fromJournal(String accountId, TransactionJournal journal) {
+        BankAccount account = new BankAccount(accountId, 0);
+        account.balanceCents = journal.getBalanceCents();
+        account.journal = journal;
+        return account;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    // Convert a dollar amount to cents, rounding to the nearest cent; infinite, NaN and
+    // out-of-range amounts give INVALID_CENTS, which every operation rejects as an invalid amount
+    public static long toCents(double amount) {
+        double cents = Math.rint(amount * 100);
+        if (!(Math.abs(cents) <= MAX_CENTS)) {
+            return INVALID_CENTS;
         }
+        return (long) cents;
     }
 
-    // Method to withdraw funds from the account
-    public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("You have successfully withdrawn: $" + amount);
-        } else if (amount > balance) {
-            System.out.println("Insufficient funds for this transaction.");
-        } else {
-            System.out.println("Withdrawal amount must be greater than zero.");
+    // Add funds without printing anything
+    public synchronized TransactionStatus depositCents(long amountCents) {
+        if (amountCents <= 0 || amountCents > MAX_CENTS) {
+            return TransactionStatus.INVALID_AMOUNT;
+        }
+        if (!canCredit(amountCents)) {
+            return TransactionStatus.BALANCE_LIMIT;
+        }
+        credit(TransactionType.DEPOSIT, amountCents);
+        return TransactionStatus.COMPLETED;
+    }
+
+    // Withdraw funds without printing anything
+    public synchronized TransactionStatus withdrawCents(long amountCents) {
+        return debit(TransactionType.WITHDRAWAL, amountCents);
+    }
+
+    // Move money between two accounts. Both locks are taken in account ID order, so two
+    // transfers in opposite directions cannot deadlock; distinct accounts that share an ID are
+    // ordered by identity hash, and by TIE_LOCK if those collide too. The withdrawal side
+    // applies the same checks as withdraw().
+    static TransactionStatus transfer(BankAccount from, BankAccount to, long amountCents) {
+        if (from == to) {
+            return TransactionStatus.SAME_ACCOUNT;
+        }
+        int order = from.accountId.compareTo(to.accountId);
+        if (order == 0) {
+            order = Integer.compare(System.identityHashCode(from), System.identityHashCode(to));
+        }
+        if (order == 0) {
+            synchronized (TIE_LOCK) {
+                synchronized (from) {
+                    synchronized (to) {
+                        return transferLocked(from, to, amountCents);
+                    }
+                }
+            }
+        }
+        BankAccount first = order < 0 ? from : to;
+        BankAccount second = first == from ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                return transferLocked(from, to, amountCents);
+            }
+        }
+    }
+
+    // Apply a transfer; the caller holds both accounts' locks
+    private static TransactionStatus transferLocked(BankAccount from, BankAccount to, long amountCents) {
+        if (amountCents > 0 && amountCents <= from.balanceCents && !to.canCredit(amountCents)) {
+            return TransactionStatus.BALANCE_LIMIT;
+        }
+        TransactionStatus status = from.debit(TransactionType.TRANSFER_OUT, amountCents);
+        if (status == TransactionStatus.COMPLETED) {
+            to.credit(TransactionType.TRANSFER_IN, amountCents);
+        }
+        return status;
+    }
+
+    // Apply a debit; the caller holds this account's lock
+    private TransactionStatus debit(TransactionType type, long amountCents) {
+        if (amountCents <= 0) {
+            return TransactionStatus.INVALID_AMOUNT;
+        }
+        if (amountCents > balanceCents) {
+            return TransactionStatus.INSUFFICIENT_FUNDS;
         }
+        balanceCents -= amountCents;
+        record(type, amountCents);
+        return TransactionStatus.COMPLETED;
+    }
+
+    // Whether a credit keeps the balance within MAX_CENTS; the caller holds this account's lock
+    private boolean canCredit(long amountCents) {
+        return amountCents <= MAX_CENTS - balanceCents;
+    }
+
+    // Apply a credit that canCredit() allowed; the caller holds this account's lock
+    private void credit(TransactionType type, long amountCents) {
+        balanceCents = Math.addExact(balanceCents, amountCents);
+        record(type, amountCents);
+    }
+
+    private void record(TransactionType type, long amountCents) {
+        long timestamp = System.currentTimeMillis();
+        ledger.add(new Transaction(type, amountCents, balanceCents, timestamp));
+        if (journal != null) {
+            journal.recorded(type, amountCents, balanceCents, timestamp);
+        }
+    }
+
+    // Method to add funds to the account
+    public TransactionStatus deposit(double amount) {
+        return depositCents(toCents(amount));
+    }
+
+    // Method to withdraw funds from the account; counted and timed by outcome
+    public TransactionStatus withdraw(double amount) {
+        long start = WITHDRAWAL_LATENCY.startTiming();
+        TransactionStatus status = withdrawCents(toCents(amount));
+        WITHDRAWAL_LATENCY.stopTiming(start);
+        WITHDRAWALS[status.ordinal()].increment();
+        return status;
     }
 
     // Method to get the current balance
     public double getBalance() {
-        return balance;
+        return balanceCents / 100.0;
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    // Copy of the ledger, oldest entry first
+    public synchronized List<Transaction> getLedger() {
+        return Collections.unmodifiableList(new ArrayList<>(ledger));
+    }
+}
+
+// Registry of all accounts the ATMs can reach.
+// Lookups go through a ConcurrentHashMap, which already shards its table across independently
+// locked bins, so registry access never serializes; money movement only locks the accounts involved.
+class AccountRegistry {
+    private final Map<String, BankAccount> accounts = new ConcurrentHashMap<>();
+
+    // Add an account; fails if the ID is already taken
+    public void addAccount(BankAccount account) {
+        if (accounts.putIfAbsent(account.getAccountId(), account) != null) {
+            throw new IllegalArgumentException("Duplicate account ID: " + account.getAccountId());
+        }
+    }
+
+    public BankAccount findAccount(String accountId) {
+        return accounts.get(accountId);
+    }
+
+    // Atomically move money between two accounts
+    public TransactionStatus transfer(String fromId, String toId, long amountCents) {
+        BankAccount from = accounts.get(fromId);
+        BankAccount to = accounts.get(toId);
+        if (from == null || to == null) {
+            return TransactionStatus.UNKNOWN_ACCOUNT;
+        }
+        return BankAccount.transfer(from, to, amountCents);
+    }
+}
+
+// The ATM operations for one customer, independent of how the customer talks to the ATM.
+// The console menu calls the operations directly; network terminals send one command per line:
+//   LOGIN <account>, BALANCE, DEPOSIT <amount>, WITHDRAW <amount>, TRANSFER <account> <amount>, QUIT
+// and get back "OK [balance]", "ERR <reason>" or "BYE".
+class ATMSession {
+    private final AccountRegistry registry;
+    private BankAccount account;
+
+    public ATMSession(AccountRegistry registry, BankAccount account) {
+        this.registry = registry;
+        this.account = account;
+    }
+
+    public BankAccount getAccount() {
+        return account;
+    }
+
+    public double checkBalance() {
+        return account.getBalance();
+    }
+
+    public TransactionStatus deposit(double amount) {
+        return account.deposit(amount);
+    }
+
+    public TransactionStatus withdraw(double amount) {
+        return account.withdraw(amount);
+    }
+
+    public TransactionStatus transfer(String destination, double amount) {
+        return registry.transfer(account.getAccountId(), destination, BankAccount.toCents(amount));
+    }
+
+    public boolean isClosed(String reply) {
+        return reply.equals("BYE");
+    }
+
+    // Handle one protocol line and return the reply line
+    public String handle(String line) {
+        String[] parts = line.trim().split("\\s+");
+        String command = parts[0].toUpperCase(Locale.ROOT);
+        try {
+            if (command.equals("QUIT")) {
+                return "BYE";
+            }
+            if (command.equals("LOGIN") && parts.length == 2) {
+                BankAccount found = registry.findAccount(parts[1]);
+                if (found == null) {
+                    return "ERR " + TransactionStatus.UNKNOWN_ACCOUNT;
+                }
+                account = found;
+                return "OK " + formatCents(account.getBalanceCents());
+            }
+            if (account == null) {
+                return "ERR NOT_LOGGED_IN";
+            }
+            if (command.equals("BALANCE") && parts.length == 1) {
+                return "OK " + formatCents(account.getBalanceCents());
+            }
+            if (command.equals("DEPOSIT") && parts.length == 2) {
+                return reply(deposit(Double.parseDouble(parts[1])));
+            }
+            if (command.equals("WITHDRAW") && parts.length == 2) {
+                return reply(withdraw(Double.parseDouble(parts[1])));
+            }
+            if (command.equals("TRANSFER") && parts.length == 3) {
+                return reply(transfer(parts[1], Double.parseDouble(parts[2])));
+            }
+        } catch (NumberFormatException e) {
+            return "ERR " + TransactionStatus.INVALID_AMOUNT;
+        }
+        return "ERR UNKNOWN_COMMAND";
+    }
+
+    private String reply(TransactionStatus status) {
+        if (status == TransactionStatus.COMPLETED) {
+            return "OK " + formatCents(account.getBalanceCents());
+        }
+        return "ERR " + status;
+    }
+
+    static String formatCents(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+}
+
+// Serves ATM sessions over a loopback socket, one thread per connection.
+// Virtual threads are used when the JVM has them (Java 21+), so tens of thousands of idle
+// terminals cost almost nothing; older JVMs fall back to a cached pool of platform threads.
+class ATMServer implements AutoCloseable {
+    private final AccountRegistry registry;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+
+    public ATMServer(AccountRegistry registry, int port) throws IOException {
+        this.registry = registry;
+        this.serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+        this.executor = SessionExecutors.newPerTaskExecutor();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Accept connections until the server is closed
+    public void start() {
+        executor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        System.err.println("Failed to accept ATM connection: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void serve(Socket socket) {
+        ATMSession session = new ATMSession(registry, null);
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(connection.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            connection.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String reply = session.handle(line);
+                out.println(reply);
+                out.flush();
+                if (session.isClosed(reply)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The terminal went away; nothing to clean up beyond the socket
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
+
+// Drives an ATM server over loopback with many concurrent terminals and reports
+// p50/p99 latency per operation
+class ATMLoadGenerator {
+    private static final String[] OPERATIONS = {"BALANCE", "DEPOSIT", "WITHDRAW"};
+
+    public static void run(int port, int sessions, int operationsPerSession, int accounts) throws Exception {
+        ExecutorService executor = SessionExecutors.newPerTaskExecutor();
+        List<Future<long[][]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            String accountId = "ACC" + (i % accounts);
+            results.add(executor.submit(() -> runSession(port, accountId, operationsPerSession)));
+        }
+        // Sized for the worst case, in which every operation of every session is of one kind
+        int capacity = Math.toIntExact((long) sessions * operationsPerSession);
+        long[][] merged = new long[OPERATIONS.length][capacity];
+        int[] counts = new int[OPERATIONS.length];
+        for (Future<long[][]> result : results) {
+            long[][] latencies = result.get();
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                System.arraycopy(latencies[op], 0, merged[op], counts[op], latencies[op].length);
+                counts[op] += latencies[op].length;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            merged[op] = Arrays.copyOf(merged[op], counts[op]);
+        }
+
+        long total = (long) sessions * operationsPerSession;
+        System.out.printf("%d sessions, %d operations in %.2f s (%.0f ops/s)%n",
+                sessions, total, elapsed / 1e9, total / (elapsed / 1e9));
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            long[] latencies = merged[op];
+            Arrays.sort(latencies);
+            System.out.printf("%-8s count=%d p50=%.1f us p99=%.1f us%n", OPERATIONS[op], latencies.length,
+                    percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3);
+        }
+    }
+
+    // One terminal: log in, then issue random operations and time each round trip
+    private static long[][] runSession(int port, String accountId, int operations) throws IOException {
+        long[][] latencies = new long[OPERATIONS.length][operations];
+        int[] counts = new int[OPERATIONS.length];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            out.println("LOGIN " + accountId);
+            out.flush();
+            in.readLine();
+            for (int i = 0; i < operations; i++) {
+                int op = random.nextInt(OPERATIONS.length);
+                String request = op == 0 ? "BALANCE" : OPERATIONS[op] + " " + (1 + random.nextInt(50));
+                long begin = System.nanoTime();
+                out.println(request);
+                out.flush();
+                if (in.readLine() == null) {
+                    break;
+                }
+                latencies[op][counts[op]++] = System.nanoTime() - begin;
+            }
+            out.println("QUIT");
+            out.flush();
+        }
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            latencies[op] = Arrays.copyOf(latencies[op], counts[op]);
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)];
     }
 }
 
 // Class representing the ATM machine
 class ATM {
-    private BankAccount account;
+    private ATMSession session;
     private Scanner scanner;
 
     // Constructor to initialize the ATM with the user's bank account
-    public ATM(BankAccount account) {
-        this.account = account;
+    public ATM(BankAccount account, AccountRegistry registry) {
+        this.session = new ATMSession(registry, account);
         this.scanner = new Scanner(System.in);
     }
 
@@ -57,8 +768,9 @@ class ATM {
             System.out.println("1. Check Balance");
             System.out.println("2. Deposit");
             System.out.println("3. Withdraw");
-            System.out.println("4. Exit");
-            System.out.print("Choose an option (1-4): ");
+            System.out.println("4. Transfer");
+            System.out.println("5. Exit");
+            System.out.print("Choose an option (1-5): ");
             int choice = scanner.nextInt();
 
             switch (choice) {
@@ -72,6 +784,9 @@ class ATM {
                     withdraw();
                     break;
                 case 4:
+                    transfer();
+                    break;
+                case 5:
                     continueTransaction = false;
                     System.out.println("Thank you for using the ATM. Goodbye!");
                     break;
@@ -83,35 +798,109 @@ class ATM {
 
     // Method to display the user's current balance
     private void checkBalance() {
-        System.out.println("Your current balance is: $" + account.getBalance());
+        System.out.println("Your current balance is: $" + session.checkBalance());
     }
 
     // Method to deposit money into the account
     private void deposit() {
         System.out.print("Enter the amount to deposit: ");
         double amount = scanner.nextDouble();
-        account.deposit(amount);
+        TransactionStatus status = session.deposit(amount);
+        if (status == TransactionStatus.COMPLETED) {
+            System.out.println("You have successfully deposited: $" + amount);
+        } else if (status == TransactionStatus.BALANCE_LIMIT) {
+            System.out.println("This deposit would take the balance over the account limit.");
+        } else {
+            System.out.println("Deposit amount must be greater than zero.");
+        }
     }
 
     // Method to withdraw money from the account
     private void withdraw() {
         System.out.print("Enter the amount to withdraw: ");
         double amount = scanner.nextDouble();
-        account.withdraw(amount);
+        TransactionStatus status = session.withdraw(amount);
+        if (status == TransactionStatus.COMPLETED) {
+            System.out.println("You have successfully withdrawn: $" + amount);
+        } else if (status == TransactionStatus.INSUFFICIENT_FUNDS) {
+            System.out.println("Insufficient funds for this transaction.");
+        } else {
+            System.out.println("Withdrawal amount must be greater than zero.");
+        }
+    }
+
+    // Method to transfer money to another account
+    private void transfer() {
+        System.out.print("Enter the destination account ID: ");
+        String destination = scanner.next();
+        System.out.print("Enter the amount to transfer: ");
+        double amount = scanner.nextDouble();
+        TransactionStatus status = session.transfer(destination, amount);
+        switch (status) {
+            case COMPLETED:
+                System.out.println("You have successfully transferred: $" + amount + " to " + destination);
+                break;
+            case INSUFFICIENT_FUNDS:
+                System.out.println("Insufficient funds for this transaction.");
+                break;
+            case UNKNOWN_ACCOUNT:
+                System.out.println("Account not found.");
+                break;
+            case SAME_ACCOUNT:
+                System.out.println("Cannot transfer to the same account.");
+                break;
+            case BALANCE_LIMIT:
+                System.out.println("This transfer would take the destination balance over the account limit.");
+                break;
+            default:
+                System.out.println("Transfer amount must be greater than zero.");
+        }
     }
 }
 
 // Main class to run the ATM simulation
 public class ATMSimulator {
-    public static void main(String[] args) {
-        // Create a bank account with an initial balance of 1000
-        BankAccount userAccount = new BankAccount(1000.0);
+    public static void main(String[] args) throws Exception {
+        Metrics.start();
+        // "serve [port] [accounts]" runs the headless session server,
+        // "load [sessions] [operations] [accounts]" load-tests an in-process server over loopback
+        if (args.length > 0 && (args[0].equals("serve") || args[0].equals("load"))) {
+            boolean serve = args[0].equals("serve");
+            int accounts = intArg(args, serve ? 2 : 3, 1000);
+            AccountRegistry registry = new AccountRegistry();
+            for (int i = 0; i < accounts; i++) {
+                registry.addAccount(new BankAccount("ACC" + i, 1000.0));
+            }
+            ATMServer server = new ATMServer(registry, serve ? intArg(args, 1, 9090) : 0);
+            server.start();
+            if (serve) {
+                System.out.println("ATM server listening on port " + server.getPort());
+                Thread.currentThread().join();
+            }
+            ATMLoadGenerator.run(server.getPort(), intArg(args, 1, 1000), intArg(args, 2, 100), accounts);
+            server.close();
+            return;
+        }
+
+        // Create a bank account with an initial balance of 1000, or the balance recorded in the journal
+        TransactionJournal journal = TransactionJournal.open(Paths.get("atm-journal.dat"), BankAccount.toCents(1000.0));
+        BankAccount userAccount = BankAccount.fromJournal("ACC1001", journal);
+
+        // Register it alongside a second account so transfers have a destination
+        AccountRegistry registry = new AccountRegistry();
+        registry.addAccount(userAccount);
+        registry.addAccount(new BankAccount("ACC1002", 500.0));
 
         // Create an ATM connected to the user's account
-        ATM atm = new ATM(userAccount);
+        ATM atm = new ATM(userAccount, registry);
 
         // Start the ATM
         atm.start();
+        journal.close();
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
     }
 }
 
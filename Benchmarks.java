@@ -0,0 +1,707 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+// Builds fresh state for one measurement iteration and hands each thread the operation it repeats.
+// Operations return a value that the runner consumes, so the JIT cannot drop them as dead code.
+interface BenchmarkSetup {
+    IntFunction<LongSupplier> prepare(int size, int threads) throws Exception;
+}
+
+// Operations whose state holds something that must be released once the iteration is over,
+// such as a background thread, open sessions or a temporary file
+class ClosingOperations implements IntFunction<LongSupplier>, Closeable {
+    private final IntFunction<LongSupplier> operations;
+    private final Closeable resources;
+
+    public ClosingOperations(IntFunction<LongSupplier> operations, Closeable resources) {
+        this.operations = operations;
+        this.resources = resources;
+    }
+
+    @Override
+    public LongSupplier apply(int thread) {
+        return operations.apply(thread);
+    }
+
+    @Override
+    public void close() throws IOException {
+        resources.close();
+    }
+}
+
+// One measured combination of benchmark, data size and thread count
+class BenchmarkResult {
+    private final String name;
+    private final int size;
+    private final int threads;
+    private final double operationsPerSecond;
+    private final double nanosPerOperation;
+    private final double bytesPerOperation;
+
+    public BenchmarkResult(String name, int size, int threads, double operationsPerSecond,
+                           double nanosPerOperation, double bytesPerOperation) {
+        this.name = name;
+        this.size = size;
+        this.threads = threads;
+        this.operationsPerSecond = operationsPerSecond;
+        this.nanosPerOperation = nanosPerOperation;
+        this.bytesPerOperation = bytesPerOperation;
+    }
+
+    // Identifies the combination in a baseline file
+    public String getKey() {
+        return name + " " + size + " " + threads;
+    }
+
+    public double getNanosPerOperation() {
+        return nanosPerOperation;
+    }
+
+    // Tab-separated form that a forked benchmark JVM hands back to its parent
+    public String toRecord() {
+        return name + "\t" + size + "\t" + threads + "\t" + operationsPerSecond + "\t" + nanosPerOperation + "\t" + bytesPerOperation;
+    }
+
+    public static BenchmarkResult fromRecord(String record) {
+        String[] fields = record.split("\t");
+        return new BenchmarkResult(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[5]));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-28s %9d %7d %,16.0f %12.1f %10.1f",
+                name, size, threads, operationsPerSecond, nanosPerOperation, bytesPerOperation);
+    }
+}
+
+// Runs each benchmark for every size and thread count: warmup iterations first, then measured
+// iterations in which all threads start together and run for a fixed time. Throughput is summed
+// over threads; ns/op is the average latency of one operation on one thread. Allocation comes from
+// the JVM's per-thread allocated-bytes counter, read by each worker before and after its run.
+class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final long iterationNanos;
+    private volatile long consumed;
+
+    public BenchmarkRunner(int warmupIterations, int measuredIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    public BenchmarkResult run(String name, BenchmarkSetup setup, int size, int threads) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(setup, size, threads);
+        }
+        long operations = 0;
+        long threadNanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < measuredIterations; i++) {
+            long[] totals = iterate(setup, size, threads);
+            operations += totals[0];
+            threadNanos += totals[1];
+            bytes += totals[2];
+        }
+        double seconds = (double) threadNanos / threads / 1e9;
+        return new BenchmarkResult(name, size, threads, operations / seconds,
+                (double) threadNanos / operations, (double) bytes / operations);
+    }
+
+    // One iteration: returns the operations, summed thread time and bytes allocated
+    private long[] iterate(BenchmarkSetup setup, int size, int threads) throws Exception {
+        IntFunction<LongSupplier> operations = setup.prepare(size, threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        long[][] perThread = new long[threads][];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            LongSupplier operation = operations.apply(thread);
+            workers[t] = new Thread(() -> perThread[thread] = measure(operation, start));
+            workers[t].start();
+        }
+        long[] totals = new long[3];
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += perThread[t][i];
+            }
+        }
+        if (operations instanceof AutoCloseable) {
+            ((AutoCloseable) operations).close();
+        }
+        return totals;
+    }
+
+    private long[] measure(LongSupplier operation, CyclicBarrier start) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        try {
+            start.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        long deadline = begin + iterationNanos;
+        long count = 0;
+        long sink = 0;
+        int batch = 1;
+        long now;
+        do {
+            // Check the clock every 64 operations so timing does not dominate short operations;
+            // start with single operations so that slow ones do not overrun the iteration
+            for (int i = 0; i < batch; i++) {
+                sink += operation.getAsLong();
+            }
+            count += batch;
+            batch = Math.min(64, batch * 2);
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        consumed += sink;
+        return new long[]{count, now - begin, allocated};
+    }
+}
+
+// Runs each combination of benchmark, size and thread count in a fresh JVM with the same JVM
+// options and class path, so JIT profiles, heap contents and threads left behind by earlier
+// benchmarks cannot skew it. The child measures in-process with BenchmarkRunner and prints its
+// result as one record line; anything else it prints is passed through.
+class ForkedBenchmarkRunner {
+    static final String RESULT_PREFIX = "RESULT\t";
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final long iterationMillis;
+
+    public ForkedBenchmarkRunner(int warmupIterations, int measuredIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    public BenchmarkResult run(String name, int size, int threads) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), "Benchmarks", "--child", name,
+                String.valueOf(size), String.valueOf(threads), String.valueOf(warmupIterations),
+                String.valueOf(measuredIterations), String.valueOf(iterationMillis)));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        BenchmarkResult result = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = BenchmarkResult.fromRecord(line.substring(RESULT_PREFIX.length()));
+                } else {
+                    System.out.println(line);
+                }
+            }
+        }
+        int status = process.waitFor();
+        if (status != 0 || result == null) {
+            throw new IllegalStateException("Benchmark " + name + " (size " + size + ", " + threads
+                    + " threads) failed in its forked JVM with exit status " + status);
+        }
+        return result;
+    }
+}
+
+// Benchmarks for the hot paths of every program in the repository.
+// Usage: Benchmarks [name-filter] [--sizes 1000,100000] [--threads 1,4] [--warmup 3]
+//                   [--iterations 5] [--time-ms 300] [--save file] [--baseline file] [--tolerance 10]
+//                   [--in-process]
+// Every combination runs in its own forked JVM; --in-process runs them all in this JVM instead,
+// which is quicker but lets earlier benchmarks warm up or pollute later ones.
+// --save writes the ns/op of every combination to a file; --baseline compares against such a file
+// and exits with status 1 if any combination got slower by more than the tolerance (in percent).
+public class Benchmarks {
+    private static final Map<String, BenchmarkSetup> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        // Catalog lookups by course code, spread over a catalog of size courses
+        BENCHMARKS.put("course.findCourse", (size, threads) -> {
+            CourseManager manager = new CourseManager();
+            String[] codes = new String[size];
+            for (int i = 0; i < size; i++) {
+                codes[i] = "C" + i;
+                manager.addCourse(new Course(codes[i], "Course " + i, "", 100, ""));
+            }
+            return thread -> {
+                SplittableRandom random = new SplittableRandom(thread);
+                return () -> manager.findCourse(codes[random.nextInt(size)]) != null ? 1 : 0;
+            };
+        });
+
+        // Filtered, paginated browsing of a catalog of size courses while seats keep changing
+        BENCHMARKS.put("course.browse", (size, threads) -> {
+            CourseManager manager = new CourseManager();
+            String[] days = {"Mon", "Tue", "Wed", "Thu", "Fri"};
+            Course[] courses = new Course[size];
+            for (int i = 0; i < size; i++) {
+                courses[i] = new Course("C" + i, "Course " + i, "", 1 + i % 3, days[i % days.length] + " 9:00-10:00 AM");
+                manager.addCourse(courses[i]);
+            }
+            CourseAvailabilityView view = manager.getAvailabilityView();
+            return thread -> {
+                SplittableRandom random = new SplittableRandom(thread);
+                return () -> {
+                    Course course = courses[random.nextInt(size)];
+                    if (course.enrollStudent()) {
+                        course.dropStudent();
+                    }
+                    return view.query(true, random.nextInt(days.length), random.nextInt(10), 20).remaining();
+                };
+            };
+        });
+
+        // Startup recovery: replay a write-ahead log of size student, register and drop events into
+        // a fresh manager. One operation is one full recovery, so ns/op is the startup cost.
+        BENCHMARKS.put("enrollment.recovery", (size, threads) -> {
+            Path directory = Files.createTempDirectory("enrollment-recovery");
+            Path logFile = EnrollmentLog.logFile(directory, 0);
+            CourseManager catalog = new CourseManager();
+            Course[] courses = {catalog.findCourse("CSE101"), catalog.findCourse("MTH102"),
+                    catalog.findCourse("PHY103"), catalog.findCourse("ENG104")};
+            Student[] students = new Student[Math.max(1, size / 20)];
+            SplittableRandom random = new SplittableRandom(42);
+            try (EnrollmentLog log = new EnrollmentLog(directory, 0)) {
+                for (int i = 0; i < students.length; i++) {
+                    students[i] = new Student("S" + i, "Student " + i);
+                    log.studentAdded(students[i]);
+                }
+                for (int i = students.length; i < size; i++) {
+                    Student student = students[random.nextInt(students.length)];
+                    Course course = courses[random.nextInt(courses.length)];
+                    if (random.nextInt(3) == 0) {
+                        log.dropped(student, course);
+                    } else {
+                        log.registered(student, course);
+                    }
+                }
+            }
+            return new ClosingOperations(thread -> () -> {
+                try {
+                    CourseManager manager = new CourseManager();
+                    long length = EnrollmentLog.recover(logFile, manager);
+                    manager.finishRecovery();
+                    return length;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, () -> {
+                Files.deleteIfExists(logFile);
+                Files.deleteIfExists(directory);
+            });
+        });
+
+        // Batch registration: each operation registers size/4 of the thread's students for four
+        // courses in one registerBatch call, then drops them again; ns/op is per batch of size requests
+        BENCHMARKS.put("course.registerBatch", (size, threads) -> {
+            CourseManager manager = new CourseManager();
+            String[] codes = {"B0", "B1", "B2", "B3"};
+            for (String code : codes) {
+                manager.addCourse(new Course(code, "Batch " + code, "", Integer.MAX_VALUE, ""));
+            }
+            return thread -> {
+                Student[] students = new Student[Math.max(1, size / codes.length)];
+                List<RegistrationRequest> requests = new ArrayList<>();
+                for (int i = 0; i < students.length; i++) {
+                    students[i] = new Student("T" + thread + "-" + i, "Student " + i);
+                    students[i].setEventSink(EventSink.NONE);
+                    for (String code : codes) {
+                        requests.add(new RegistrationRequest(students[i], code));
+                    }
+                }
+                Course[] courses = new Course[codes.length];
+                for (int c = 0; c < codes.length; c++) {
+                    courses[c] = manager.findCourse(codes[c]);
+                }
+                return () -> {
+                    long registered = 0;
+                    for (RegistrationResult result : manager.registerBatch(requests)) {
+                        if (result.isRegistered()) {
+                            registered++;
+                        }
+                    }
+                    for (Student student : students) {
+                        for (Course course : courses) {
+                            student.drop(course);
+                        }
+                    }
+                    return registered;
+                };
+            };
+        });
+
+        // Register and drop through each kind of event sink; the console sink prints and flushes
+        // every message like System.out does, into a temporary file instead of the terminal
+        BENCHMARKS.put("registration.sink.console", eventSinks("console"));
+        BENCHMARKS.put("registration.sink.buffered", eventSinks("buffered"));
+        BENCHMARKS.put("registration.sink.async", eventSinks("async"));
+        BENCHMARKS.put("registration.sink.none", eventSinks("none"));
+
+        // Each thread's student registers for and drops random courses; the seat counters are shared
+        BENCHMARKS.put("student.registerDrop", (size, threads) -> {
+            Course[] courses = new Course[size];
+            for (int i = 0; i < size; i++) {
+                courses[i] = new Course("C" + i, "Course " + i, "", Integer.MAX_VALUE, "");
+            }
+            return thread -> {
+                Student student = new Student("S" + thread, "Student " + thread);
+                student.setEventSink(EventSink.NONE);
+                SplittableRandom random = new SplittableRandom(thread);
+                return () -> {
+                    Course course = courses[random.nextInt(size)];
+                    RegistrationStatus status = student.registerCourse(course);
+                    return status.ordinal() + (student.dropCourse(course) ? 1 : 0);
+                };
+            };
+        });
+
+        // Deposits and withdrawals on size shared accounts; fewer accounts means more contention
+        BENCHMARKS.put("account.depositWithdraw", (size, threads) -> {
+            BankAccount[] accounts = new BankAccount[size];
+            for (int i = 0; i < size; i++) {
+                accounts[i] = new BankAccount("ACC" + i, 1000.0);
+            }
+            return thread -> {
+                SplittableRandom random = new SplittableRandom(thread);
+                return () -> {
+                    BankAccount account = accounts[random.nextInt(size)];
+                    return account.deposit(1.0).ordinal() + account.withdraw(1.0).ordinal();
+                };
+            };
+        });
+
+        // Transfers between size accounts where nine in ten transfers touch one of the hottest 1%
+        // of accounts, so a few account locks see most of the traffic
+        BENCHMARKS.put("account.transferSkewed", (size, threads) -> {
+            AccountRegistry registry = new AccountRegistry();
+            String[] ids = new String[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = "ACC" + i;
+                registry.addAccount(new BankAccount(ids[i], 1_000_000.0));
+            }
+            int hot = Math.max(1, size / 100);
+            return thread -> {
+                SplittableRandom random = new SplittableRandom(thread);
+                return () -> {
+                    String from = ids[random.nextInt(10) < 9 ? random.nextInt(hot) : random.nextInt(size)];
+                    String to = ids[random.nextInt(10) < 9 ? random.nextInt(hot) : random.nextInt(size)];
+                    return registry.transfer(from, to, 1).ordinal();
+                };
+            };
+        });
+
+        // One whole quiz session, answered at once, while size other sessions sit waiting for input
+        // on the shared timer. Waiting sessions hold no thread and use no CPU, so ns/op should not
+        // grow with size; a polling implementation would slow it down in proportion.
+        BENCHMARKS.put("quiz.sessionWithIdleSessions", (size, threads) -> {
+            QuestionBank bank = QuestionBank.defaultBank();
+            PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+            LineAnswerSource[] idle = new LineAnswerSource[size];
+            for (int i = 0; i < size; i++) {
+                idle[i] = new LineAnswerSource();
+                new QuizApp(bank, idle[i], discard).start();
+            }
+            return new ClosingOperations(thread -> () -> {
+                LineAnswerSource input = new LineAnswerSource();
+                for (int i = 0; i < bank.size(); i++) {
+                    input.offer("1");
+                }
+                QuizApp quiz = new QuizApp(bank, input, discard);
+                quiz.start().join();
+                return quiz.getState().getScore();
+            }, () -> {
+                // Ending their input finishes the idle sessions and cancels their timeouts
+                for (LineAnswerSource source : idle) {
+                    source.close();
+                }
+            });
+        });
+
+        // Score size answers against the questions they were given for
+        BENCHMARKS.put("quiz.scoring", (size, threads) -> {
+            QuestionBank bank = QuestionBank.defaultBank();
+            QuizQuestion[] questions = new QuizQuestion[size];
+            int[] answers = new int[size];
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < size; i++) {
+                questions[i] = bank.get(i % bank.size());
+                answers[i] = random.nextInt(questions[i].getOptionCount());
+            }
+            return thread -> () -> {
+                long score = 0;
+                for (int i = 0; i < size; i++) {
+                    if (questions[i].isCorrect(answers[i])) {
+                        score++;
+                    }
+                }
+                return score;
+            };
+        });
+
+        // Total, average and grade for size students in six subjects, one student at a time
+        BENCHMARKS.put("grades.averageAndGrade", (size, threads) -> {
+            MarksTable table = randomMarks(size, 6);
+            return thread -> () -> {
+                long grades = 0;
+                for (int row = 0; row < table.getRowCount(); row++) {
+                    int total = 0;
+                    for (int s = 0; s < table.getSubjectCount(); s++) {
+                        total += table.getMark(row, s);
+                    }
+                    grades += StudentGradeCalculator.gradeFor((double) total / table.getSubjectCount());
+                }
+                return grades;
+            };
+        });
+
+        // The column-wise fork/join batch grader over the same data
+        BENCHMARKS.put("grades.batch", (size, threads) -> {
+            MarksTable table = randomMarks(size, 6);
+            return thread -> {
+                int[] totals = new int[size];
+                char[] grades = new char[size];
+                return () -> {
+                    GradeBatch.compute(table, totals, grades);
+                    return grades[size - 1];
+                };
+            };
+        });
+
+        // Cohort statistics and ranks over the same data with each kernel: on the calling thread,
+        // in the fork/join pool, and through a parallel stream
+        BENCHMARKS.put("grades.statistics.scalar", gradeStatistics(StatisticsKernel.SCALAR));
+        BENCHMARKS.put("grades.statistics.forkJoin", gradeStatistics(StatisticsKernel.FORK_JOIN));
+        BENCHMARKS.put("grades.statistics.stream", gradeStatistics(StatisticsKernel.PARALLEL_STREAM));
+
+        // Cost of instrumentation: one counter increment, and one histogram record. Timing an
+        // operation adds two System.nanoTime() calls on top, which cost what the platform's clock costs.
+        BENCHMARKS.put("metrics.counter", (size, threads) -> {
+            MetricCounter counter = new MetricCounter();
+            return thread -> () -> {
+                counter.increment();
+                return 1;
+            };
+        });
+        BENCHMARKS.put("metrics.histogram", (size, threads) -> {
+            MetricHistogram histogram = new MetricHistogram(1);
+            return thread -> {
+                long[] value = new long[1];
+                return () -> {
+                    histogram.record(value[0]++ & 0xFFFF);
+                    return 1;
+                };
+            };
+        });
+    }
+
+    private static BenchmarkSetup eventSinks(String kind) {
+        return (size, threads) -> {
+            Path file = Files.createTempFile("event-sink", ".log");
+            OutputStream out = new FileOutputStream(file.toFile());
+            EventSink sink;
+            switch (kind) {
+                case "console":
+                    PrintStream console = new PrintStream(out, true);
+                    sink = console::println;
+                    break;
+                case "buffered":
+                    sink = new BufferedEventSink(out);
+                    break;
+                case "async":
+                    sink = new AsyncEventSink(new BufferedEventSink(out), 1 << 16);
+                    break;
+                default:
+                    sink = EventSink.NONE;
+            }
+            Course course = new Course("BENCH", "Benchmark Course", "", Integer.MAX_VALUE, "");
+            return new ClosingOperations(thread -> {
+                Student student = new Student("B" + thread, "Student " + thread);
+                student.setEventSink(sink);
+                return () -> student.registerCourse(course).ordinal() + (student.dropCourse(course) ? 1 : 0);
+            }, () -> {
+                sink.close();
+                out.close();
+                Files.deleteIfExists(file);
+            });
+        };
+    }
+
+    private static BenchmarkSetup gradeStatistics(StatisticsKernel kernel) {
+        return (size, threads) -> {
+            MarksTable table = randomMarks(size, 6);
+            int[] totals = new int[size];
+            GradeBatch.compute(table, totals, new char[size]);
+            return thread -> () -> GradeStatistics.compute(table, totals, kernel).getRank(size - 1);
+        };
+    }
+
+    private static MarksTable randomMarks(int students, int subjects) {
+        MarksTable table = new MarksTable(subjects);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] marks = new int[subjects];
+        for (int row = 0; row < students; row++) {
+            for (int s = 0; s < subjects; s++) {
+                marks[s] = random.nextInt(101);
+            }
+            table.addRow("S" + row, marks);
+        }
+        return table;
+    }
+
+    private static int[] intList(String value) {
+        String[] parts = value.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            runChild(args);
+            return;
+        }
+        String filter = "";
+        int[] sizes = {1_000, 100_000};
+        int[] threadCounts = {1, Runtime.getRuntime().availableProcessors()};
+        int warmup = 3;
+        int iterations = 5;
+        long iterationMillis = 300;
+        Path save = null;
+        Path baseline = null;
+        double tolerance = 10;
+        boolean inProcess = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = intList(args[++i]);
+                    break;
+                case "--threads":
+                    threadCounts = intList(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--time-ms":
+                    iterationMillis = Long.parseLong(args[++i]);
+                    break;
+                case "--save":
+                    save = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                case "--in-process":
+                    inProcess = true;
+                    break;
+                default:
+                    filter = args[i];
+            }
+        }
+
+        threadCounts = Arrays.stream(threadCounts).distinct().toArray();
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, iterationMillis);
+        ForkedBenchmarkRunner forked = new ForkedBenchmarkRunner(warmup, iterations, iterationMillis);
+        List<BenchmarkResult> results = new ArrayList<>();
+        System.out.printf("%-28s %9s %7s %16s %12s %10s%n", "benchmark", "size", "threads", "ops/s", "ns/op", "B/op");
+        for (Map.Entry<String, BenchmarkSetup> benchmark : BENCHMARKS.entrySet()) {
+            if (!benchmark.getKey().contains(filter)) {
+                continue;
+            }
+            for (int size : sizes) {
+                for (int threads : threadCounts) {
+                    BenchmarkResult result = inProcess
+                            ? runner.run(benchmark.getKey(), benchmark.getValue(), size, threads)
+                            : forked.run(benchmark.getKey(), size, threads);
+                    results.add(result);
+                    System.out.println(result);
+                }
+            }
+        }
+
+        if (save != null) {
+            List<String> lines = new ArrayList<>();
+            for (BenchmarkResult result : results) {
+                lines.add(result.getKey() + " " + result.getNanosPerOperation());
+            }
+            Files.write(save, lines);
+        }
+        if (baseline != null && !compare(results, baseline, tolerance)) {
+            System.exit(1);
+        }
+    }
+
+    // Forked JVM side: --child name size threads warmup iterations time-ms
+    private static void runChild(String[] args) throws Exception {
+        String name = args[1];
+        BenchmarkSetup setup = BENCHMARKS.get(name);
+        if (setup == null) {
+            throw new IllegalArgumentException("Unknown benchmark: " + name);
+        }
+        BenchmarkRunner runner = new BenchmarkRunner(Integer.parseInt(args[4]), Integer.parseInt(args[5]), Long.parseLong(args[6]));
+        BenchmarkResult result = runner.run(name, setup, Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        System.out.println(ForkedBenchmarkRunner.RESULT_PREFIX + result.toRecord());
+        // Exit even if a benchmark left a non-daemon thread running
+        System.exit(0);
+    }
+
+    // Report every combination that is slower than the baseline by more than the tolerance
+    private static boolean compare(List<BenchmarkResult> results, Path baseline, double tolerance) throws IOException {
+        Map<String, Double> expected = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(baseline)) {
+            int split = line.lastIndexOf(' ');
+            if (split > 0) {
+                expected.put(line.substring(0, split), Double.parseDouble(line.substring(split + 1)));
+            }
+        }
+        boolean passed = true;
+        for (BenchmarkResult result : results) {
+            Double before = expected.get(result.getKey());
+            if (before == null) {
+                continue;
+            }
+            double change = (result.getNanosPerOperation() / before - 1) * 100;
+            if (change > tolerance) {
+                System.out.printf("REGRESSION %s: %.1f ns/op -> %.1f ns/op (%+.1f%%)%n",
+                        result.getKey(), before, result.getNanosPerOperation(), change);
+                passed = false;
+            }
+        }
+        System.out.println(passed ? "No regressions against " + baseline : "Regressions found against " + baseline);
+        return passed;
+    }
+}
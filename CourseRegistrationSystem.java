@@ -1,6 +1,182 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A course schedule parsed into weekly time intervals, e.g. "Mon, Wed 10:00-11:30 AM".
+// Intervals are stored as minute-of-week ranges so they can be checked against a student's
+// busy-time bitset (one bit per minute of the week) without any allocation.
+class WeeklySchedule {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    static final String[] DAY_NAMES = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+    static final WeeklySchedule EMPTY = new WeeklySchedule(new int[0], new int[0], 0);
+
+    private static final Pattern FORMAT = Pattern.compile(
+            "^\\s*([A-Za-z ,/]+?)\\s+(\\d{1,2}):(\\d{2})\\s*([AaPp][Mm])?\\s*-\\s*(\\d{1,2}):(\\d{2})\\s*([AaPp][Mm])?\\s*$");
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int dayMask;
+
+    private WeeklySchedule(int[] starts, int[] ends, int dayMask) {
+        this.starts = starts;
+        this.ends = ends;
+        this.dayMask = dayMask;
+    }
+
+    // Parse a schedule string; anything that cannot be understood yields an empty schedule
+    static WeeklySchedule parse(String schedule) {
+        if (schedule == null) {
+            return EMPTY;
+        }
+        Matcher matcher = FORMAT.matcher(schedule);
+        if (!matcher.matches()) {
+            return EMPTY;
+        }
+        int dayMask = 0;
+        for (String token : matcher.group(1).split("[ ,/]+")) {
+            int day = dayIndex(token);
+            if (day < 0) {
+                return EMPTY;
+            }
+            dayMask |= 1 << day;
+        }
+        int startHour = Integer.parseInt(matcher.group(2));
+        int startMinute = Integer.parseInt(matcher.group(3));
+        String startMeridiem = matcher.group(4);
+        String endMeridiem = matcher.group(7);
+        int end = toMinutes(Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)), endMeridiem);
+        int start;
+        if (startMeridiem == null && endMeridiem != null) {
+            // "1:00-2:30 PM" shares the meridiem, "11:00-1:00 PM" starts in the morning
+            start = toMinutes(startHour, startMinute, endMeridiem);
+            if (start >= end && endMeridiem.equalsIgnoreCase("PM")) {
+                start = toMinutes(startHour, startMinute, "AM");
+            }
+        } else {
+            start = toMinutes(startHour, startMinute, startMeridiem);
+        }
+        if (start < 0 || end < 0 || end <= start) {
+            return EMPTY;
+        }
+        int days = Integer.bitCount(dayMask);
+        int[] starts = new int[days];
+        int[] ends = new int[days];
+        int i = 0;
+        for (int day = 0; day < 7; day++) {
+            if ((dayMask & (1 << day)) != 0) {
+                starts[i] = day * MINUTES_PER_DAY + start;
+                ends[i] = day * MINUTES_PER_DAY + end;
+                i++;
+            }
+        }
+        return new WeeklySchedule(starts, ends, dayMask);
+    }
+
+    private static int dayIndex(String token) {
+        if (token.length() < 3) {
+            return -1;
+        }
+        String prefix = token.substring(0, 3).toUpperCase(Locale.ROOT);
+        for (int day = 0; day < DAY_NAMES.length; day++) {
+            if (DAY_NAMES[day].equals(prefix)) {
+                return day;
+            }
+        }
+        return -1;
+    }
+
+    private static int toMinutes(int hour, int minute, String meridiem) {
+        if (minute > 59) {
+            return -1;
+        }
+        if (meridiem == null) {
+            return hour > 24 ? -1 : hour * 60 + minute;
+        }
+        if (hour < 1 || hour > 12) {
+            return -1;
+        }
+        return (hour % 12 + (meridiem.equalsIgnoreCase("PM") ? 12 : 0)) * 60 + minute;
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    // Bit i is set if the course meets on day i (0 = Monday)
+    public int getDayMask() {
+        return dayMask;
+    }
+
+    public boolean meetsOn(int day) {
+        return (dayMask & (1 << day)) != 0;
+    }
+
+    // Check whether any interval overlaps a minute already marked busy
+    public boolean conflictsWith(BitSet busyMinutes) {
+        for (int i = 0; i < starts.length; i++) {
+            int next = busyMinutes.nextSetBit(starts[i]);
+            if (next >= 0 && next < ends[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void markBusy(BitSet busyMinutes) {
+        for (int i = 0; i < starts.length; i++) {
+            busyMinutes.set(starts[i], ends[i]);
+        }
+    }
+
+    public void clearBusy(BitSet busyMinutes) {
+        for (int i = 0; i < starts.length; i++) {
+            busyMinutes.clear(starts[i], ends[i]);
+        }
+    }
+}
 
 // Class representing a Course
 class Course {
@@ -9,7 +185,14 @@ class Course {
     private String description;
     private int capacity;
     private String schedule;
-    private int enrolledStudents;
+    private WeeklySchedule weeklySchedule;
+    // Seats are claimed with compare-and-set so concurrent registrations never oversell
+    private final AtomicInteger enrolledStudents;
+    // Students waiting for a seat, promoted first-come first-served when one frees up
+    private final ConcurrentLinkedQueue<Student> waitlist;
+    private volatile CourseAvailabilityListener availabilityListener;
+    // This course's position in the listener's listing, so a seat change needs no lookup
+    private int availabilityIndex;
 
     // Constructor to initialize course details
     public Course(String courseCode, String title, String description, int capacity, String schedule) {
@@ -18,7 +201,9 @@ class Course {
         this.description = description;
         this.capacity = capacity;
         this.schedule = schedule;
-        this.enrolledStudents = 0;
+        this.weeklySchedule = WeeklySchedule.parse(schedule);
+        this.enrolledStudents = new AtomicInteger(0);
+        this.waitlist = new ConcurrentLinkedQueue<>();
     }
 
     // Getters for course details
@@ -42,122 +227,1197 @@ class Course {
         return schedule;
     }
 
+    public WeeklySchedule getWeeklySchedule() {
+        return weeklySchedule;
+    }
+
     public int getAvailableSlots() {
-        return capacity - enrolledStudents;
+        return capacity - enrolledStudents.get();
+    }
+
+    public int getEnrolledStudents() {
+        return enrolledStudents.get();
+    }
+
+    public int getWaitlistSize() {
+        return waitlist.size();
+    }
+
+    // The index is written before the volatile listener, so whoever sees the listener sees the index
+    void setAvailabilityListener(CourseAvailabilityListener listener, int index) {
+        this.availabilityIndex = index;
+        this.availabilityListener = listener;
+    }
+
+    private void seatsChanged() {
+        CourseAvailabilityListener listener = availabilityListener;
+        if (listener != null) {
+            listener.availabilityChanged(availabilityIndex);
+        }
+    }
+
+    // Reserve a seat; returns false if the course is full or freed seats are owed to the waitlist
+    public boolean enrollStudent() {
+        return waitlist.isEmpty() && claimSeat();
     }
 
-    public void enrollStudent() {
-        if (enrolledStudents < capacity) {
-            enrolledStudents++;
+    private boolean claimSeat() {
+        while (true) {
+            int current = enrolledStudents.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (enrolledStudents.compareAndSet(current, current + 1)) {
+                seatsChanged();
+                return true;
+            }
         }
     }
 
-    public void dropStudent() {
-        if (enrolledStudents > 0) {
-            enrolledStudents--;
+    // Queue a student for the next free seat
+    void addToWaitlist(Student student) {
+        waitlist.add(student);
+        promoteWaitlisted();
+    }
+
+    // Hand free seats to waitlisted students in FIFO order.
+    // The seat is claimed before the head is polled, so a newcomer cannot take it in between;
+    // if nobody on the waitlist can use it, it is released and the waitlist is checked again
+    // in case someone joined meanwhile. No lock is held while promoting.
+    public void promoteWaitlisted() {
+        while (!waitlist.isEmpty() && claimSeat()) {
+            boolean promoted = false;
+            Student next;
+            while (!promoted && (next = waitlist.poll()) != null) {
+                promoted = next.acceptPromotion(this);
+            }
+            if (!promoted) {
+                dropStudent();
+            }
+        }
+    }
+
+    // Take a seat without checking capacity; only used when replaying persisted registrations
+    void restoreStudent() {
+        enrolledStudents.incrementAndGet();
+        seatsChanged();
+    }
+
+    // Release a seat; returns false if nobody was enrolled
+    public boolean dropStudent() {
+        while (true) {
+            int current = enrolledStudents.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (enrolledStudents.compareAndSet(current, current - 1)) {
+                seatsChanged();
+                return true;
+            }
         }
     }
 }
 
+// Outcome of a single registration attempt
+enum RegistrationStatus {
+    REGISTERED,
+    ALREADY_REGISTERED,
+    COURSE_FULL,
+    SCHEDULE_CONFLICT,
+    WAITLISTED,
+    COURSE_NOT_FOUND,
+    DUPLICATE_REQUEST,
+    ROLLED_BACK
+}
+
+// Notified after a student's registrations change, while the student is still locked
+interface EnrollmentListener {
+    void registered(Student student, Course course);
+
+    void dropped(Student student, Course course);
+}
+
 // Class representing a Student
 class Student {
+    private String studentID;
     private String name;
-    private List<Course> registeredCourses;
+    // Set-backed so membership checks stay O(1); insertion order is kept for display
+    private Set<Course> registeredCourses;
+    // One bit per minute of the week that is taken by a registered course
+    private BitSet busyMinutes;
+    private Set<Course> waitlistedCourses;
+    private volatile EnrollmentListener listener;
+    private volatile EventSink events = EventSink.CONSOLE;
+
+    private static final MetricCounter[] REGISTRATIONS = new MetricCounter[RegistrationStatus.values().length];
+    private static final MetricHistogram REGISTRATION_LATENCY = Metrics.sampledHistogram("registration_latency_nanos");
+
+    static {
+        for (RegistrationStatus status : RegistrationStatus.values()) {
+            REGISTRATIONS[status.ordinal()] = Metrics.counter(
+                    "registrations_total{status=\"" + status.name().toLowerCase(Locale.ROOT) + "\"}");
+        }
+    }
 
     // Constructor to initialize student details
     public Student(String studentID, String name) {
+        this.studentID = studentID;
         this.name = name;
-        this.registeredCourses = new ArrayList<>();
+        this.registeredCourses = new LinkedHashSet<>();
+        this.busyMinutes = new BitSet(WeeklySchedule.MINUTES_PER_WEEK);
+        this.waitlistedCourses = new HashSet<>();
+    }
+
+    // Getters for student details
+    public String getStudentID() {
+        return studentID;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setEnrollmentListener(EnrollmentListener listener) {
+        this.listener = listener;
+    }
+
+    // Where registerCourse, dropCourse and displayRegisteredCourses send their messages
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    public synchronized List<Course> getRegisteredCourses() {
+        return new ArrayList<>(registeredCourses);
+    }
+
+    public synchronized boolean isRegistered(Course course) {
+        return registeredCourses.contains(course);
+    }
+
+    // Check whether the course overlaps any registered course
+    public synchronized boolean hasScheduleConflict(Course course) {
+        return course.getWeeklySchedule().conflictsWith(busyMinutes);
+    }
+
+    // Copy of the minutes taken by registered courses, for bulk conflict queries
+    public synchronized BitSet getBusyMinutes() {
+        return (BitSet) busyMinutes.clone();
+    }
+
+    // Register for a course without printing anything
+    // The seat is claimed atomically on the course, so the capacity check and the increment cannot interleave
+    public synchronized RegistrationStatus register(Course course) {
+        if (registeredCourses.contains(course)) {
+            return RegistrationStatus.ALREADY_REGISTERED;
+        }
+        if (course.getWeeklySchedule().conflictsWith(busyMinutes)) {
+            return RegistrationStatus.SCHEDULE_CONFLICT;
+        }
+        if (!course.enrollStudent()) {
+            return RegistrationStatus.COURSE_FULL;
+        }
+        registeredCourses.add(course);
+        course.getWeeklySchedule().markBusy(busyMinutes);
+        if (listener != null) {
+            listener.registered(this, course);
+        }
+        return RegistrationStatus.REGISTERED;
+    }
+
+    // Register for a course, joining its waitlist if it is full
+    public RegistrationStatus registerOrWaitlist(Course course) {
+        synchronized (this) {
+            RegistrationStatus status = register(course);
+            if (status != RegistrationStatus.COURSE_FULL) {
+                return status;
+            }
+            if (!waitlistedCourses.add(course)) {
+                return RegistrationStatus.WAITLISTED;
+            }
+        }
+        // Enqueue outside the lock: a seat freed meanwhile may promote this student right away
+        course.addToWaitlist(this);
+        return RegistrationStatus.WAITLISTED;
+    }
+
+    public synchronized boolean isWaitlisted(Course course) {
+        return waitlistedCourses.contains(course);
+    }
+
+    // Take a seat already claimed for this student by Course.promoteWaitlisted();
+    // returns false if the student can no longer use it
+    synchronized boolean acceptPromotion(Course course) {
+        waitlistedCourses.remove(course);
+        if (registeredCourses.contains(course) || course.getWeeklySchedule().conflictsWith(busyMinutes)) {
+            return false;
+        }
+        registeredCourses.add(course);
+        course.getWeeklySchedule().markBusy(busyMinutes);
+        if (listener != null) {
+            listener.registered(this, course);
+        }
+        return true;
+    }
+
+    // Drop a course without printing anything; returns false if not registered
+    public boolean drop(Course course) {
+        if (!release(course)) {
+            return false;
+        }
+        // Promote outside this student's lock so two students promoting each other cannot deadlock
+        course.promoteWaitlisted();
+        return true;
+    }
+
+    // Give up the seat without promoting anyone from the waitlist
+    synchronized boolean release(Course course) {
+        if (registeredCourses.remove(course)) {
+            course.getWeeklySchedule().clearBusy(busyMinutes);
+            course.dropStudent();
+            if (listener != null) {
+                listener.dropped(this, course);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Re-apply a persisted registration; capacity and conflicts were checked when it was first made.
+    // Busy times are left alone until rebuildBusyMinutes() runs at the end of recovery.
+    synchronized void restore(Course course) {
+        if (registeredCourses.add(course)) {
+            course.restoreStudent();
+        }
+    }
+
+    // Re-apply a persisted drop
+    synchronized void restoreDrop(Course course) {
+        if (registeredCourses.remove(course)) {
+            course.dropStudent();
+        }
+    }
+
+    // Recompute busy times from the registered courses once recovery has restored them
+    synchronized void rebuildBusyMinutes() {
+        busyMinutes.clear();
+        for (Course course : registeredCourses) {
+            course.getWeeklySchedule().markBusy(busyMinutes);
+        }
     }
 
     // Method to register for a course
-    public void registerCourse(Course course) {
-        if (!registeredCourses.contains(course) && course.getAvailableSlots() > 0) {
-            registeredCourses.add(course);
-            course.enrollStudent();
-            System.out.println(name + " successfully registered for " + course.getTitle());
+    // A full course shows up as status "waitlisted"
+    public RegistrationStatus registerCourse(Course course) {
+        long start = REGISTRATION_LATENCY.startTiming();
+        RegistrationStatus status = registerOrWaitlist(course);
+        REGISTRATION_LATENCY.stopTiming(start);
+        REGISTRATIONS[status.ordinal()].increment();
+        EventSink sink = events;
+        if (!sink.isEnabled()) {
+            return status;
+        }
+        if (status == RegistrationStatus.REGISTERED) {
+            sink.emit(name + " successfully registered for " + course.getTitle());
+        } else if (status == RegistrationStatus.WAITLISTED) {
+            sink.emit("Course is full. " + name + " has been added to the waitlist for " + course.getTitle());
+        } else if (status == RegistrationStatus.SCHEDULE_CONFLICT) {
+            sink.emit("Registration failed: Schedule conflicts with a registered course.");
         } else {
-            System.out.println("Registration failed: No available slots or already registered.");
+            sink.emit("Registration failed: No available slots or already registered.");
         }
+        return status;
     }
 
     // Method to drop a course
-    public void dropCourse(Course course) {
-        if (registeredCourses.contains(course)) {
-            registeredCourses.remove(course);
-            course.dropStudent();
-            System.out.println(name + " successfully dropped " + course.getTitle());
+    public boolean dropCourse(Course course) {
+        boolean dropped = drop(course);
+        EventSink sink = events;
+        if (!sink.isEnabled()) {
+            return dropped;
+        }
+        if (dropped) {
+            sink.emit(name + " successfully dropped " + course.getTitle());
         } else {
-            System.out.println("You are not registered in this course.");
+            sink.emit("You are not registered in this course.");
         }
+        return dropped;
     }
 
     // Display registered courses
-    public void displayRegisteredCourses() {
-        System.out.println("Courses registered by " + name + ":");
+    public synchronized void displayRegisteredCourses() {
+        EventSink sink = events;
+        if (!sink.isEnabled()) {
+            return;
+        }
+        sink.emit("Courses registered by " + name + ":");
         if (registeredCourses.isEmpty()) {
-            System.out.println("No courses registered.");
+            sink.emit("No courses registered.");
         } else {
             for (Course course : registeredCourses) {
-                System.out.println(course.getTitle() + " (" + course.getCourseCode() + ")");
+                sink.emit(course.getTitle() + " (" + course.getCourseCode() + ")");
+            }
+        }
+    }
+}
+
+// A single (student, course) pair submitted to a batch registration
+class RegistrationRequest {
+    private Student student;
+    private String courseCode;
+
+    public RegistrationRequest(Student student, String courseCode) {
+        this.student = student;
+        this.courseCode = courseCode;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+}
+
+// Result of one request in a batch registration
+class RegistrationResult {
+    private RegistrationRequest request;
+    private RegistrationStatus status;
+
+    public RegistrationResult(RegistrationRequest request, RegistrationStatus status) {
+        this.request = request;
+        this.status = status;
+    }
+
+    public RegistrationRequest getRequest() {
+        return request;
+    }
+
+    public RegistrationStatus getStatus() {
+        return status;
+    }
+
+    public boolean isRegistered() {
+        return status == RegistrationStatus.REGISTERED;
+    }
+
+    @Override
+    public String toString() {
+        return request.getStudent().getStudentID() + " " + request.getCourseCode() + ": " + status;
+    }
+}
+
+// Append-only write-ahead log of student and register/drop events.
+// Appends only go into an in-memory buffer under a short lock. Syncing swaps that buffer for an
+// empty one and then writes and fsyncs it outside the lock, so appends never wait for the disk.
+// Threads that call sync() while another sync is in progress wait for it and usually find their
+// events already durable, so many concurrent registrations share one disk sync (group commit);
+// a background thread also syncs every few milliseconds. Logs are numbered by generation: a
+// checkpoint starts a new generation, writes a snapshot, then deletes older logs.
+class EnrollmentLog implements EnrollmentListener, Closeable {
+    static final byte STUDENT = 1;
+    static final byte REGISTER = 2;
+    static final byte DROP = 3;
+    private static final long SYNC_INTERVAL_MILLIS = 10;
+
+    private final Path directory;
+    private long generation;
+    private FileOutputStream file;
+    // Appends go to buffer/out; the spare pair is the one being written out by sync()
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+    private DataOutputStream out = new DataOutputStream(buffer);
+    private ByteArrayOutputStream spareBuffer = new ByteArrayOutputStream(1 << 16);
+    private DataOutputStream spareOut = new DataOutputStream(spareBuffer);
+    private long appended;
+    private long eventsSinceCheckpoint;
+    // Held while writing to the file; only ever taken before the monitor of this log, never inside it
+    private final Object syncLock = new Object();
+    private long durable;
+    private final ScheduledExecutorService syncer;
+
+    EnrollmentLog(Path directory, long generation) throws IOException {
+        this.directory = directory;
+        open(generation);
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "enrollment-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                System.err.println("Failed to sync enrollment log: " + e.getMessage());
+            }
+        }, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    static Path logFile(Path directory, long generation) {
+        return directory.resolve("enrollments-" + generation + ".log");
+    }
+
+    private void open(long generation) throws IOException {
+        this.generation = generation;
+        file = new FileOutputStream(logFile(directory, generation).toFile(), true);
+    }
+
+    @Override
+    public void registered(Student student, Course course) {
+        append(REGISTER, student.getStudentID(), course.getCourseCode());
+    }
+
+    @Override
+    public void dropped(Student student, Course course) {
+        append(DROP, student.getStudentID(), course.getCourseCode());
+    }
+
+    void studentAdded(Student student) {
+        append(STUDENT, student.getStudentID(), student.getName());
+    }
+
+    private synchronized void append(byte type, String first, String second) {
+        try {
+            out.writeByte(type);
+            out.writeUTF(first);
+            out.writeUTF(second);
+            appended++;
+            eventsSinceCheckpoint++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to enrollment log", e);
+        }
+    }
+
+    synchronized long getEventsSinceCheckpoint() {
+        return eventsSinceCheckpoint;
+    }
+
+    // Write every event appended so far and force it to disk; returns once they are durable
+    void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        synchronized (syncLock) {
+            if (durable >= target) {
+                return;
+            }
+            ByteArrayOutputStream full;
+            long covered;
+            synchronized (this) {
+                full = buffer;
+                buffer = spareBuffer;
+                spareBuffer = full;
+                DataOutputStream fullOut = out;
+                out = spareOut;
+                spareOut = fullOut;
+                covered = appended;
+            }
+            full.writeTo(file);
+            full.reset();
+            file.getChannel().force(false);
+            durable = covered;
+        }
+    }
+
+    // Seal the current log and start the next generation; returns the new generation
+    long rotate() throws IOException {
+        synchronized (syncLock) {
+            // Appends made after this sync wait in the buffer and go to the new generation
+            sync();
+            file.close();
+            synchronized (this) {
+                open(generation + 1);
+                eventsSinceCheckpoint = 0;
+                return generation;
+            }
+        }
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return syncer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        synchronized (syncLock) {
+            sync();
+            file.close();
+        }
+    }
+
+    // Replay one log file and return the length of its valid prefix. A torn record at the end
+    // (crash mid-write) is not applied and ends the valid prefix.
+    static long replay(Path logFile, CourseManager manager) throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(logFile);
+        ByteArrayInputStream data = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(data);
+        long validLength = 0;
+        try {
+            while (validLength < bytes.length) {
+                byte type = in.readByte();
+                if (type != STUDENT && type != REGISTER && type != DROP) {
+                    break;
+                }
+                String first = in.readUTF();
+                String second = in.readUTF();
+                manager.applyEvent(type, first, second);
+                validLength = bytes.length - data.available();
+            }
+        } catch (EOFException | UTFDataFormatException tornRecord) {
+            // Everything from the last complete record on is discarded by recover()
+        }
+        return validLength;
+    }
+
+    // Replay a log file and cut off any torn tail, so that new appends follow the last
+    // complete record rather than the garbage after it; returns the length that was kept
+    static long recover(Path logFile, CourseManager manager) throws IOException {
+        long validLength = replay(logFile, manager);
+        if (Files.exists(logFile) && Files.size(logFile) > validLength) {
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(false);
+            }
+        }
+        return validLength;
+    }
+}
+
+// Notified whenever a course's number of free seats changes, with the index the course was
+// given in Course.setAvailabilityListener
+interface CourseAvailabilityListener {
+    void availabilityChanged(int index);
+}
+
+// Read-optimized catalog listing for browsing. Each course's "CODE: Title | Slots Available: N"
+// line is kept encoded as bytes, along with a bit set of courses with open seats and one of
+// courses meeting on each weekday. Seat changes only mark the course dirty (one flag set by
+// index, no map lookup and no shared counter to contend on); the next read
+// re-encodes just the dirty courses and publishes a new immutable snapshot, so reads never
+// build strings or touch Course objects, and filtered pages come from walking the bit sets.
+// Lines are stored in fixed-size chunks so a new snapshot copies only the chunks that changed.
+class CourseAvailabilityView implements CourseAvailabilityListener {
+    static final int ANY_DAY = -1;
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final byte[] HEADER = ("Available Courses:" + System.lineSeparator()).getBytes(Charset.defaultCharset());
+
+    private final List<Course> courses = new ArrayList<>();
+    private final BitSet[] coursesByDay = new BitSet[WeeklySchedule.DAY_NAMES.length];
+    private final ConcurrentLinkedQueue<Integer> dirty = new ConcurrentLinkedQueue<>();
+    private volatile AtomicIntegerArray dirtyFlags = new AtomicIntegerArray(16);
+    private final LongAdder version = new LongAdder();
+    private volatile Snapshot snapshot;
+
+    // The listing as of one version; never modified after it is published
+    private static class Snapshot {
+        final long version;
+        final int size;
+        final byte[][][] chunks;
+        final BitSet open;
+        final BitSet[] days;
+        // The whole listing is only assembled when someone asks for it
+        private volatile byte[] listing;
+
+        Snapshot(long version, int size, byte[][][] chunks, BitSet open, BitSet[] days) {
+            this.version = version;
+            this.size = size;
+            this.chunks = chunks;
+            this.open = open;
+            this.days = days;
+        }
+
+        byte[] line(int index) {
+            return chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+        }
+
+        byte[] listing() {
+            byte[] assembled = listing;
+            if (assembled == null) {
+                int length = HEADER.length;
+                for (int i = 0; i < size; i++) {
+                    length += line(i).length;
+                }
+                assembled = Arrays.copyOf(HEADER, length);
+                int position = HEADER.length;
+                for (int i = 0; i < size; i++) {
+                    byte[] line = line(i);
+                    System.arraycopy(line, 0, assembled, position, line.length);
+                    position += line.length;
+                }
+                listing = assembled;
+            }
+            return assembled;
+        }
+    }
+
+    CourseAvailabilityView() {
+        BitSet[] days = new BitSet[coursesByDay.length];
+        for (int day = 0; day < coursesByDay.length; day++) {
+            coursesByDay[day] = new BitSet();
+            days[day] = new BitSet();
+        }
+        snapshot = new Snapshot(0, 0, new byte[0][][], new BitSet(), days);
+    }
+
+    // Add a course to the end of the listing and start following its seat changes
+    synchronized void add(Course course) {
+        int index = courses.size();
+        courses.add(course);
+        for (int day = 0; day < coursesByDay.length; day++) {
+            if (course.getWeeklySchedule().meetsOn(day)) {
+                coursesByDay[day].set(index);
+            }
+        }
+        if (index == dirtyFlags.length()) {
+            AtomicIntegerArray flags = new AtomicIntegerArray(index * 2);
+            for (int i = 0; i < index; i++) {
+                flags.set(i, dirtyFlags.get(i));
             }
+            dirtyFlags = flags;
+        }
+        course.setAvailabilityListener(this, index);
+        availabilityChanged(index);
+    }
+
+    // Called on the thread that changed the seats, so it only flags the course
+    @Override
+    public void availabilityChanged(int index) {
+        version.increment();
+        if (dirtyFlags.compareAndSet(index, 0, 1)) {
+            dirty.add(index);
+        }
+    }
+
+    // Incremented on every seat change
+    public long getVersion() {
+        return version.sum();
+    }
+
+    // The version the listing returned by the next read reflects at least
+    public long getListingVersion() {
+        return current().version;
+    }
+
+    // Re-encode the courses that changed since the last read
+    private Snapshot current() {
+        if (dirty.isEmpty()) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (dirty.isEmpty()) {
+                return snapshot;
+            }
+            Snapshot current = snapshot;
+            long asOf = version.sum();
+            int size = courses.size();
+            byte[][][] chunks = Arrays.copyOf(current.chunks, (size + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+            BitSet copied = new BitSet(chunks.length);
+            BitSet open = (BitSet) current.open.clone();
+            BitSet[] days = current.days;
+            if (size != current.size) {
+                days = new BitSet[coursesByDay.length];
+                for (int day = 0; day < days.length; day++) {
+                    days[day] = (BitSet) coursesByDay[day].clone();
+                }
+            }
+            Integer index;
+            while ((index = dirty.poll()) != null) {
+                // Clear the flag first, so a change made while re-encoding marks the course again
+                dirtyFlags.set(index, 0);
+                int chunk = index >>> CHUNK_BITS;
+                if (!copied.get(chunk)) {
+                    chunks[chunk] = chunks[chunk] == null ? new byte[CHUNK_SIZE][] : chunks[chunk].clone();
+                    copied.set(chunk);
+                }
+                Course course = courses.get(index);
+                chunks[chunk][index & (CHUNK_SIZE - 1)] = encode(course);
+                open.set(index, course.getAvailableSlots() > 0);
+            }
+            snapshot = new Snapshot(asOf, size, chunks, open, days);
+            return snapshot;
+        }
+    }
+
+    private static byte[] encode(Course course) {
+        return (course.getCourseCode() + ": " + course.getTitle() + " | Slots Available: " + course.getAvailableSlots()
+                + System.lineSeparator()).getBytes(Charset.defaultCharset());
+    }
+
+    // The full listing, header included, exactly as displayAvailableCourses prints it
+    public ByteBuffer allCourses() {
+        return ByteBuffer.wrap(current().listing()).asReadOnlyBuffer();
+    }
+
+    public void writeListing(OutputStream out) throws IOException {
+        out.write(current().listing());
+    }
+
+    // Indexes of the courses matching the filters
+    private static BitSet matching(Snapshot current, boolean openOnly, int day) {
+        if (day != ANY_DAY && (day < 0 || day >= current.days.length)) {
+            throw new IllegalArgumentException("Day must be 0 (Monday) to 6 or ANY_DAY: " + day);
+        }
+        BitSet matches;
+        if (openOnly) {
+            matches = (BitSet) current.open.clone();
+        } else {
+            matches = new BitSet(current.size);
+            matches.set(0, current.size);
+        }
+        if (day != ANY_DAY) {
+            matches.and(current.days[day]);
+        }
+        return matches;
+    }
+
+    // Number of courses matching the filters
+    public int count(boolean openOnly, int day) {
+        return matching(current(), openOnly, day).cardinality();
+    }
+
+    // One page of matching course lines, without the header. day is 0 (Monday) to 6, or ANY_DAY.
+    public ByteBuffer query(boolean openOnly, int day, int page, int pageSize) {
+        if (page < 0 || pageSize < 0) {
+            throw new IllegalArgumentException("Negative page " + page + " or page size " + pageSize);
+        }
+        Snapshot current = current();
+        BitSet matches = matching(current, openOnly, day);
+        long skip = (long) page * pageSize;
+        int index = matches.nextSetBit(0);
+        for (long skipped = 0; index >= 0 && skipped < skip; skipped++) {
+            index = matches.nextSetBit(index + 1);
         }
+        int first = index;
+        int length = 0;
+        for (int taken = 0; index >= 0 && taken < pageSize; taken++) {
+            length += current.line(index).length;
+            index = matches.nextSetBit(index + 1);
+        }
+        ByteBuffer lines = ByteBuffer.allocate(length);
+        index = first;
+        while (lines.hasRemaining()) {
+            lines.put(current.line(index));
+            index = matches.nextSetBit(index + 1);
+        }
+        return lines.flip().asReadOnlyBuffer();
     }
 }
 
 // Class to manage the courses and student registration
-class CourseManager {
+class CourseManager implements Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x43525331;
+    private static final long CHECKPOINT_EVENTS = 100_000;
+
     private List<Course> courses;
-    private List<Student> students;
+    private Map<String, Student> students;
+    // Catalog indexes: course code (case-normalized), schedule slot and lower-cased title
+    private Map<String, Course> coursesByCode;
+    private Map<String, List<Course>> coursesBySchedule;
+    private TreeMap<String, List<Course>> coursesByTitle;
+    private CourseAvailabilityView availability;
+    private Path dataDirectory;
+    private EnrollmentLog log;
 
     // Constructor to initialize the course and student lists
     public CourseManager() {
         courses = new ArrayList<>();
-        students = new ArrayList<>();
+        students = new ConcurrentHashMap<>();
+        coursesByCode = new HashMap<>();
+        coursesBySchedule = new HashMap<>();
+        coursesByTitle = new TreeMap<>();
+        availability = new CourseAvailabilityView();
         loadCourses();
     }
 
+    // Constructor for a durable manager: recovers students and registrations from the
+    // latest snapshot plus the logs written after it, then logs every further change
+    public CourseManager(Path dataDirectory) throws IOException {
+        this();
+        this.dataDirectory = dataDirectory;
+        Files.createDirectories(dataDirectory);
+        long generation = readSnapshot();
+        long lastGeneration = generation;
+        while (Files.exists(EnrollmentLog.logFile(dataDirectory, lastGeneration + 1))) {
+            lastGeneration++;
+        }
+        for (long g = generation; g <= lastGeneration; g++) {
+            EnrollmentLog.recover(EnrollmentLog.logFile(dataDirectory, g), this);
+        }
+        finishRecovery();
+        log = new EnrollmentLog(dataDirectory, lastGeneration);
+        for (Student student : students.values()) {
+            student.setEnrollmentListener(log);
+        }
+        log.getScheduler().scheduleWithFixedDelay(() -> {
+            if (log.getEventsSinceCheckpoint() >= CHECKPOINT_EVENTS) {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    System.err.println("Failed to write enrollment snapshot: " + e.getMessage());
+                }
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
     // Method to load predefined courses into the system
     private void loadCourses() {
-        courses.add(new Course("CSE101", "Introduction to Computer Science", "Basic concepts of computer science", 30, "Mon, Wed 10:00-11:30 AM"));
-        courses.add(new Course("MTH102", "Calculus I", "Introduction to calculus and differential equations", 40, "Tue, Thu 1:00-2:30 PM"));
-        courses.add(new Course("PHY103", "Physics I", "Fundamentals of mechanics and thermodynamics", 35, "Mon, Wed 2:00-3:30 PM"));
-        courses.add(new Course("ENG104", "English Literature", "Study of classic and modern English literature", 25, "Fri 9:00-11:00 AM"));
+        addCourse(new Course("CSE101", "Introduction to Computer Science", "Basic concepts of computer science", 30, "Mon, Wed 10:00-11:30 AM"));
+        addCourse(new Course("MTH102", "Calculus I", "Introduction to calculus and differential equations", 40, "Tue, Thu 1:00-2:30 PM"));
+        addCourse(new Course("PHY103", "Physics I", "Fundamentals of mechanics and thermodynamics", 35, "Mon, Wed 2:00-3:30 PM"));
+        addCourse(new Course("ENG104", "English Literature", "Study of classic and modern English literature", 25, "Fri 9:00-11:00 AM"));
+    }
+
+    // Method to add a course to the catalog and its indexes
+    public void addCourse(Course course) {
+        String code = normalize(course.getCourseCode());
+        if (coursesByCode.containsKey(code)) {
+            throw new IllegalArgumentException("Duplicate course code: " + course.getCourseCode());
+        }
+        courses.add(course);
+        coursesByCode.put(code, course);
+        coursesBySchedule.computeIfAbsent(normalize(course.getSchedule()), key -> new ArrayList<>()).add(course);
+        coursesByTitle.computeIfAbsent(course.getTitle().toLowerCase(Locale.ROOT), key -> new ArrayList<>()).add(course);
+        availability.add(course);
+    }
+
+    // Precomputed listing for browsing, kept current as seats change
+    public CourseAvailabilityView getAvailabilityView() {
+        return availability;
     }
 
     // Method to display available courses
     public void displayAvailableCourses() {
-        System.out.println("Available Courses:");
-        for (Course course : courses) {
-            System.out.println(course.getCourseCode() + ": " + course.getTitle() + " | Slots Available: " + course.getAvailableSlots());
+        try {
+            availability.writeListing(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        System.out.flush();
     }
 
     // Method to add a student to the system
     public void addStudent(Student student) {
-        students.add(student);
+        if (students.putIfAbsent(student.getStudentID(), student) == null && log != null) {
+            log.studentAdded(student);
+            student.setEnrollmentListener(log);
+        }
+    }
+
+    // Method to find a student by ID
+    public Student findStudent(String studentID) {
+        return students.get(studentID);
+    }
+
+    // Apply one replayed log event. Replay is idempotent per (student, course): the last
+    // event for a pair decides the outcome, so it is safe to replay a log whose events are
+    // partly contained in the snapshot.
+    void applyEvent(byte type, String studentID, String value) {
+        if (type == EnrollmentLog.STUDENT) {
+            students.putIfAbsent(studentID, new Student(studentID, value));
+            return;
+        }
+        Student student = students.get(studentID);
+        Course course = findCourse(value);
+        if (student == null || course == null) {
+            return;
+        }
+        if (type == EnrollmentLog.REGISTER) {
+            student.restore(course);
+        } else if (type == EnrollmentLog.DROP) {
+            student.restoreDrop(course);
+        }
+    }
+
+    // Bring derived per-student state up to date after the snapshot and logs have been applied
+    void finishRecovery() {
+        for (Student student : students.values()) {
+            student.rebuildBusyMinutes();
+        }
+    }
+
+    // Start a new log generation, snapshot the current state, and delete the logs it covers
+    public synchronized void checkpoint() throws IOException {
+        if (log == null) {
+            return;
+        }
+        long generation = log.rotate();
+        Path snapshot = dataDirectory.resolve("enrollments.snapshot");
+        Path temp = dataDirectory.resolve("enrollments.snapshot.tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(generation);
+            out.writeInt(students.size());
+            for (Student student : students.values()) {
+                List<Course> registered = student.getRegisteredCourses();
+                out.writeUTF(student.getStudentID());
+                out.writeUTF(student.getName());
+                out.writeInt(registered.size());
+                for (Course course : registered) {
+                    out.writeUTF(course.getCourseCode());
+                }
+            }
+            out.flush();
+            file.getChannel().force(false);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Older generations are fully covered by the snapshot
+        long older = generation - 1;
+        while (older >= 0 && Files.deleteIfExists(EnrollmentLog.logFile(dataDirectory, older))) {
+            older--;
+        }
+    }
+
+    // Load the snapshot if there is one; returns the first log generation to replay
+    private long readSnapshot() throws IOException {
+        Path snapshot = dataDirectory.resolve("enrollments.snapshot");
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(snapshot)));
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not an enrollment snapshot: " + snapshot);
+        }
+        long generation = in.readLong();
+        int studentCount = in.readInt();
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student(in.readUTF(), in.readUTF());
+            students.put(student.getStudentID(), student);
+            int registered = in.readInt();
+            for (int j = 0; j < registered; j++) {
+                Course course = findCourse(in.readUTF());
+                if (course != null) {
+                    student.restore(course);
+                }
+            }
+        }
+        return generation;
+    }
+
+    // Flush the log and write a final snapshot
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            checkpoint();
+            log.close();
+        }
+    }
+
+    // Register many (student, course) pairs at once.
+    // Requests are validated in one pass, then applied per student: either every course in a
+    // student's share of the batch is registered, or none are and the seats taken so far are released.
+    // Results are returned in request order.
+    public List<RegistrationResult> registerBatch(List<RegistrationRequest> requests) {
+        RegistrationStatus[] statuses = new RegistrationStatus[requests.size()];
+        Course[] resolved = new Course[requests.size()];
+        Map<Student, List<Integer>> requestsByStudent = new LinkedHashMap<>();
+
+        // Validation pass: resolve codes, reject duplicates and existing registrations
+        Map<Student, Set<Course>> seen = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RegistrationRequest request = requests.get(i);
+            Student student = request.getStudent();
+            requestsByStudent.computeIfAbsent(student, key -> new ArrayList<>()).add(i);
+            Course course = findCourse(request.getCourseCode());
+            resolved[i] = course;
+            if (course == null) {
+                statuses[i] = RegistrationStatus.COURSE_NOT_FOUND;
+            } else if (!seen.computeIfAbsent(student, key -> new HashSet<>()).add(course)) {
+                statuses[i] = RegistrationStatus.DUPLICATE_REQUEST;
+            } else if (student.isRegistered(course)) {
+                statuses[i] = RegistrationStatus.ALREADY_REGISTERED;
+            } else if (course.getAvailableSlots() <= 0) {
+                statuses[i] = RegistrationStatus.COURSE_FULL;
+            }
+        }
+
+        // Apply pass: all-or-nothing per student
+        for (Map.Entry<Student, List<Integer>> entry : requestsByStudent.entrySet()) {
+            Student student = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            List<Course> released = new ArrayList<>();
+            synchronized (student) {
+                boolean failed = false;
+                for (int i : indexes) {
+                    if (statuses[i] != null) {
+                        failed = true;
+                        break;
+                    }
+                }
+                List<Integer> applied = new ArrayList<>();
+                if (!failed) {
+                    for (int i : indexes) {
+                        statuses[i] = student.register(resolved[i]);
+                        if (statuses[i] != RegistrationStatus.REGISTERED) {
+                            failed = true;
+                            break;
+                        }
+                        applied.add(i);
+                    }
+                }
+                if (failed) {
+                    for (int i : applied) {
+                        student.release(resolved[i]);
+                        released.add(resolved[i]);
+                    }
+                    for (int i : indexes) {
+                        if (statuses[i] == null || statuses[i] == RegistrationStatus.REGISTERED) {
+                            statuses[i] = RegistrationStatus.ROLLED_BACK;
+                        }
+                    }
+                }
+            }
+            for (Course course : released) {
+                course.promoteWaitlisted();
+            }
+        }
+
+        List<RegistrationResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(new RegistrationResult(requests.get(i), statuses[i]));
+        }
+        return results;
     }
 
     // Method to find a course by course code
     public Course findCourse(String courseCode) {
-        for (Course course : courses) {
-            if (course.getCourseCode().equalsIgnoreCase(courseCode)) {
-                return course;
+        if (courseCode == null) {
+            return null;
+        }
+        return coursesByCode.get(normalize(courseCode));
+    }
+
+    // Method to find all courses that meet in the given schedule slot
+    public List<Course> findCoursesBySchedule(String schedule) {
+        if (schedule == null) {
+            return Collections.emptyList();
+        }
+        List<Course> matches = coursesBySchedule.get(normalize(schedule));
+        return matches == null ? Collections.emptyList() : Collections.unmodifiableList(matches);
+    }
+
+    // Method to find all courses whose title starts with the given prefix (case-insensitive)
+    public List<Course> findCoursesByTitlePrefix(String prefix) {
+        List<Course> matches = new ArrayList<>();
+        if (prefix == null) {
+            return matches;
+        }
+        String from = prefix.toLowerCase(Locale.ROOT);
+        for (List<Course> sameTitle : coursesByTitle.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            matches.addAll(sameTitle);
+        }
+        return matches;
+    }
+
+    // Find open courses that fit around the student's current schedule.
+    // With a title prefix only the matching part of the catalog is scanned, which is what an
+    // autocomplete box needs; each candidate costs a couple of bitset probes. At most limit courses are returned.
+    public List<Course> findConflictFreeCourses(Student student, String titlePrefix, int limit) {
+        List<Course> candidates = titlePrefix == null || titlePrefix.isEmpty() ? courses : findCoursesByTitlePrefix(titlePrefix);
+        BitSet busyMinutes = student.getBusyMinutes();
+        List<Course> matches = new ArrayList<>();
+        for (Course course : candidates) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            if (course.getAvailableSlots() > 0
+                    && !course.getWeeklySchedule().conflictsWith(busyMinutes)
+                    && !student.isRegistered(course)) {
+                matches.add(course);
             }
         }
-        return null;
+        return matches;
+    }
+
+    // Normalize codes and schedule slots so lookups ignore case and surrounding whitespace
+    private static String normalize(String key) {
+        return key.trim().toUpperCase(Locale.ROOT);
     }
 }
 
 // Main class to run the Course Registration System
 public class CourseRegistrationSystem {
-    public static void main(String[] args) {
+    // Stress test for seat reservation: many threads register for, join the waitlist of and drop a
+    // small course at random while a checker watches the seat count. Fails if the course is ever
+    // oversold or if the final seat count disagrees with the students who hold a seat.
+    private static boolean stressTest(int operations, int threads) throws InterruptedException {
+        int capacity = 50;
+        Course course = new Course("STRESS", "Stress Course", "", capacity, "");
+        Student[][] students = new Student[threads][20];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < students[t].length; i++) {
+                students[t][i] = new Student("T" + t + "-" + i, "Student " + i);
+                students[t][i].setEventSink(EventSink.NONE);
+            }
+        }
+        AtomicInteger maxSeen = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Student[] mine = students[t];
+            int share = operations / threads + (t < operations % threads ? 1 : 0);
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom();
+                for (int op = 0; op < share; op++) {
+                    Student student = mine[random.nextInt(mine.length)];
+                    if (random.nextBoolean()) {
+                        student.registerOrWaitlist(course);
+                    } else {
+                        student.drop(course);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        while (Arrays.stream(workers).anyMatch(Thread::isAlive)) {
+            maxSeen.accumulateAndGet(course.getEnrolledStudents(), Math::max);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int holdingSeats = 0;
+        for (Student[] group : students) {
+            for (Student student : group) {
+                if (student.isRegistered(course)) {
+                    holdingSeats++;
+                }
+            }
+        }
+        boolean passed = maxSeen.get() <= capacity && holdingSeats == course.getEnrolledStudents();
+        System.out.printf("%d operations on %d threads in %.2f s: capacity %d, most seats seen taken %d, "
+                        + "seats taken %d, students holding a seat %d, waitlisted %d -> %s%n",
+                operations, threads, seconds, capacity, maxSeen.get(), course.getEnrolledStudents(),
+                holdingSeats, course.getWaitlistSize(), passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Metrics.start();
+        // "stress [operations] [threads]" exits with status 1 if a course was oversold
+        if (args.length > 0 && args[0].equals("stress")) {
+            int operations = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Math.max(8, Runtime.getRuntime().availableProcessors());
+            if (!stressTest(operations, threads)) {
+                System.exit(1);
+            }
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
-        CourseManager courseManager = new CourseManager();
+        CourseManager courseManager = new CourseManager(Paths.get("registration-data"));
 
-        // Create a sample student
-        Student student = new Student("S001", "John Doe");
-        courseManager.addStudent(student);
+        // Create a sample student, unless one was recovered from disk
+        Student student = courseManager.findStudent("S001");
+        if (student == null) {
+            student = new Student("S001", "John Doe");
+            courseManager.addStudent(student);
+        }
 
         boolean continueProgram = true;
 
@@ -212,6 +1472,7 @@ public class CourseRegistrationSystem {
                     System.out.println("Invalid option. Please choose a valid option.");
             }
         }
+        courseManager.close();
         scanner.close();
     }
 }
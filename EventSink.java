@@ -0,0 +1,196 @@
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Where domain objects send the messages they used to print. Operations return their outcome as a
+// value and emit a message for whoever is watching; the sink decides what happens to it.
+//   CONSOLE   prints each message straight away, for interactive menus
+//   buffered  collects messages in a large buffer and writes them out in bulk
+//   async     hands messages to a background writer through a lock-free ring buffer
+//   NONE      drops them, for batch and load runs that only need the returned results
+// Callers check isEnabled() before building a message, so a NONE sink costs no formatting.
+public interface EventSink extends AutoCloseable {
+    void emit(String message);
+
+    // Whether emitted messages go anywhere
+    default boolean isEnabled() {
+        return true;
+    }
+
+    // Write out anything held back
+    default void flush() {
+    }
+
+    @Override
+    default void close() {
+        flush();
+    }
+
+    EventSink CONSOLE = message -> System.out.println(message);
+
+    EventSink NONE = new EventSink() {
+        @Override
+        public void emit(String message) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    // Buffered writes to standard output, bypassing System.out's per-line flushing
+    static EventSink buffered() {
+        return new BufferedEventSink(new FileOutputStream(FileDescriptor.out));
+    }
+
+    // Asynchronous writes to standard output through a ring buffer of the given size
+    static EventSink async(int capacity) {
+        return new AsyncEventSink(new BufferedEventSink(new FileOutputStream(FileDescriptor.out)), capacity);
+    }
+}
+
+// Appends messages to a large write buffer; the stream is only touched when the buffer fills or on flush()
+class BufferedEventSink implements EventSink {
+    private final Writer writer;
+
+    public BufferedEventSink(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    @Override
+    public synchronized void emit(String message) {
+        try {
+            writer.write(message);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
+
+// Callers claim a slot in a power-of-two ring with a compare-and-set and return at once; a single
+// background thread drains the ring into another sink, flushes it once whenever the ring runs dry,
+// and then parks until the next emit wakes it. When the ring is full the message is dropped and
+// counted rather than blocking the caller.
+class AsyncEventSink implements EventSink {
+    private final EventSink delegate;
+    private final AtomicReferenceArray<String> ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    // Set by the writer before its last look at the ring, so an emit that lands after that look
+    // sees it and unparks the writer
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+
+    public AsyncEventSink(EventSink delegate, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.delegate = delegate;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writer = new Thread(this::drain, "event-sink-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void emit(String message) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        ring.set((int) sequence & mask, message);
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // Messages lost because the ring was full
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        long next = consumed.get();
+        boolean yielded = false;
+        while (true) {
+            int slot = (int) next & mask;
+            String message = ring.get(slot);
+            if (message == null) {
+                if (claimed.get() != next) {
+                    // Claimed but not yet stored; the emitter is about to set it
+                    Thread.yield();
+                    continue;
+                }
+                if (!yielded) {
+                    // Give producers one more chance to add messages before paying for a write
+                    yielded = true;
+                    Thread.yield();
+                    continue;
+                }
+                delegate.flush();
+                if (closed) {
+                    return;
+                }
+                sleeping = true;
+                if (claimed.get() == next && !closed) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+                continue;
+            }
+            yielded = false;
+            delegate.emit(message);
+            ring.set(slot, null);
+            consumed.lazySet(++next);
+        }
+    }
+
+    // Wait until every message emitted so far has been written out
+    @Override
+    public void flush() {
+        long target = claimed.get();
+        while (consumed.get() < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            Thread.yield();
+        }
+        delegate.flush();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.List;
+
+// Self-checking regression tests for the leaderboard; exits with status 1 if a check fails.
+// Run with: java -cp out LeaderboardTest
+public class LeaderboardTest {
+    private static int failures;
+
+    public static void main(String[] args) {
+        rejoinKeepsPlayerInTop();
+        rejoinKeepsRankAndCounts();
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All leaderboard checks passed");
+    }
+
+    // Joining again with an unchanged score must not drop the player from TOP
+    private static void rejoinKeepsPlayerInTop() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.join("ana");
+        leaderboard.addPoints("bo", 5);
+        leaderboard.join("ana");
+        leaderboard.join("bo");
+        List<LeaderboardEntry> top = leaderboard.top(GuessingSession.DEFAULT_TOP);
+        check(top.size() == 2, "both players listed after rejoining, got " + top.size());
+        check(top.size() == 2 && top.get(0).getPlayerId().equals("bo") && top.get(0).getScore() == 5,
+                "bo leads with 5");
+        check(top.size() == 2 && top.get(1).getPlayerId().equals("ana") && top.get(1).getScore() == 0,
+                "ana follows with 0");
+    }
+
+    // Rejoining must not change ranks, and a score nobody holds any more must not count
+    private static void rejoinKeepsRankAndCounts() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.addPoints("ana", 3);
+        leaderboard.addPoints("bo", 3);
+        leaderboard.addPoints("cy", 1);
+        leaderboard.join("ana");
+        check(leaderboard.rankOf("cy") == 3, "cy ranked 3 behind two players on 3");
+        leaderboard.addPoints("ana", 2);
+        leaderboard.addPoints("bo", 1);
+        check(leaderboard.rankOf("cy") == 3, "cy still ranked 3 after both leaders moved");
+        check(leaderboard.rankOf("bo") == 2, "bo ranked 2 behind ana");
+        check(leaderboard.size() == 3, "three players listed");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+}
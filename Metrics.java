@@ -0,0 +1,246 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// A count that only goes up; increments from many threads land in separate LongAdder cells
+class MetricCounter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
+
+// Distribution of non-negative values such as latencies in nanoseconds. Values below 8 get a
+// bucket each; above that every power of two is split into four buckets, so any percentile is
+// within 25% of the true value. Recording is an index computation and two LongAdder updates,
+// with no lock and no allocation.
+// Timings taken with startTiming()/stopTiming() can be sampled: only one call in samplePeriod
+// reads the clock, so count and sum then cover the sampled calls only.
+class MetricHistogram {
+    private static final int BUCKETS = 8 + 60 * 4;
+    // What startTiming() returns for a call that is not timed
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final int sampleMask;
+
+    // samplePeriod must be a power of two; 1 times every call
+    MetricHistogram(int samplePeriod) {
+        if (Integer.bitCount(samplePeriod) != 1) {
+            throw new IllegalArgumentException("Sample period is not a power of two: " + samplePeriod);
+        }
+        this.sampleMask = samplePeriod - 1;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    // Negative values, such as a clock that stepped back, are recorded as 0
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        buckets[bucketFor(clamped)].increment();
+        sum.add(clamped);
+    }
+
+    // A System.nanoTime() reading if this call is picked for timing, NOT_TIMED otherwise
+    public long startTiming() {
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    // Record the time elapsed since startTiming(), unless that call was not picked
+    public void stopTiming(long startNanos) {
+        if (startNanos != NOT_TIMED) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    static int bucketFor(long value) {
+        if (value < 8) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - 2)) & 3;
+        return 8 + (exponent - 3) * 4 + subBucket;
+    }
+
+    // Largest value that falls in a bucket
+    static long upperBound(int bucket) {
+        if (bucket < 8) {
+            return bucket;
+        }
+        int exponent = (bucket - 8) / 4 + 3;
+        long lower = (long) (4 + (bucket - 8) % 4) << (exponent - 2);
+        return lower + (1L << (exponent - 2)) - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    // Upper bound of the bucket holding the given fraction of the values (0 when empty)
+    public long getPercentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+}
+
+// Process-wide registry of counters and histograms. Instrumented classes look their metrics up
+// once into static fields and then update them directly, so the registry is never on a hot path.
+// The current values can be read through JMX (bean "codsoft:type=Metrics") and, when the system
+// property metrics.port is set, as plain text from http://127.0.0.1:<port>/metrics.
+public class Metrics {
+    private static final Map<String, MetricCounter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, MetricHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+    // Sample period of sampledHistogram(): timing every call would add two clock reads to
+    // operations that take a few hundred nanoseconds
+    private static final int HOT_PATH_SAMPLE_PERIOD = 16;
+    private static boolean started;
+
+    private Metrics() {
+    }
+
+    // Names follow the text format's conventions; labels may be given inline, as in
+    // registrations_total{status="registered"}
+    public static MetricCounter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, ignored -> new MetricCounter());
+    }
+
+    public static MetricHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, ignored -> new MetricHistogram(1));
+    }
+
+    // A latency histogram for hot paths that times one call in HOT_PATH_SAMPLE_PERIOD. Its _count
+    // counts the timed calls; pair it with a counter for the exact number of calls.
+    public static MetricHistogram sampledHistogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, ignored -> new MetricHistogram(HOT_PATH_SAMPLE_PERIOD));
+    }
+
+    // Every metric as name/value pairs, sorted by name
+    static Map<String, Double> values() {
+        Map<String, Double> values = new TreeMap<>();
+        for (Map.Entry<String, MetricCounter> counter : COUNTERS.entrySet()) {
+            values.put(counter.getKey(), (double) counter.getValue().get());
+        }
+        for (Map.Entry<String, MetricHistogram> entry : HISTOGRAMS.entrySet()) {
+            MetricHistogram histogram = entry.getValue();
+            values.put(entry.getKey() + "_count", (double) histogram.getCount());
+            values.put(entry.getKey() + "_sum", (double) histogram.getSum());
+            for (double percentile : PERCENTILES) {
+                values.put(entry.getKey() + "{quantile=\"" + percentile + "\"}", (double) histogram.getPercentile(percentile));
+            }
+        }
+        return values;
+    }
+
+    // One "name value" line per metric
+    public static String scrape() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Double> value : values().entrySet()) {
+            text.append(value.getKey()).append(' ').append(value.getValue().longValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    // Register the JMX bean, and start the text endpoint if metrics.port is set.
+    // Failures are reported but never stop the application.
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Registry(), new ObjectName("codsoft:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("Metrics are not available over JMX: " + e.getMessage());
+        }
+        String port = System.getProperty("metrics.port");
+        if (port != null) {
+            try {
+                serve(Integer.parseInt(port));
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Metrics endpoint could not be started: " + e.getMessage());
+            }
+        }
+    }
+
+    // Serve the text format on loopback only
+    public static HttpServer serve(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    // Management interface seen by JMX clients such as jconsole
+    public interface RegistryMXBean {
+        Map<String, Double> getValues();
+
+        String getScrape();
+    }
+
+    static class Registry implements RegistryMXBean {
+        @Override
+        public Map<String, Double> getValues() {
+            return values();
+        }
+
+        @Override
+        public String getScrape() {
+            return scrape();
+        }
+    }
+}
@@ -1,9 +1,621 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+// Picks the next guess given the range the secret number is still known to be in
+interface GuessingStrategy {
+    int nextGuess(int low, int high, SplittableRandom random);
+
+    // Always guess the middle of the remaining range
+    GuessingStrategy BINARY = (low, high, random) -> (low + high) >>> 1;
+
+    // Guess anywhere in the remaining range
+    GuessingStrategy RANDOM = (low, high, random) -> low + random.nextInt(high - low + 1);
+
+    static GuessingStrategy named(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "binary":
+                return BINARY;
+            case "random":
+                return RANDOM;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+}
+
+// The side holding the number. A fair host fixes a secret at the start of the game; an adversarial
+// host never commits to one and answers so that the guesser is left with the larger range.
+enum NumberHost {
+    FAIR {
+        @Override
+        int answer(int secret, int guess, int low, int high) {
+            return Integer.compare(guess, secret);
+        }
+    },
+    ADVERSARIAL {
+        @Override
+        int answer(int secret, int guess, int low, int high) {
+            if (low == high && guess == low) {
+                return 0;
+            }
+            // Declaring "too high" keeps [low, guess - 1]; "too low" keeps [guess + 1, high]
+            return guess - low >= high - guess ? 1 : -1;
+        }
+    };
+
+    // 0 if the guess is correct, positive if it is too high, negative if it is too low
+    abstract int answer(int secret, int guess, int low, int high);
+}
+
+// Totals over many simulated games
+class GuessingResult {
+    private final long[] attemptCounts; // index 0 counts lost games, index n games won on attempt n
+
+    public GuessingResult(long[] attemptCounts) {
+        this.attemptCounts = attemptCounts;
+    }
+
+    public long getGames() {
+        long games = 0;
+        for (long count : attemptCounts) {
+            games += count;
+        }
+        return games;
+    }
+
+    public long getWins() {
+        return getGames() - attemptCounts[0];
+    }
+
+    public double getWinRate() {
+        return (double) getWins() / getGames();
+    }
+
+    // Number of games won on the given attempt (1 to the attempt limit)
+    public long getWinsOnAttempt(int attempt) {
+        return attemptCounts[attempt];
+    }
+
+    public double getAverageAttemptsToWin() {
+        long attempts = 0;
+        for (int attempt = 1; attempt < attemptCounts.length; attempt++) {
+            attempts += attempt * attemptCounts[attempt];
+        }
+        return (double) attempts / getWins();
+    }
+
+    GuessingResult merge(GuessingResult other) {
+        for (int i = 0; i < attemptCounts.length; i++) {
+            attemptCounts[i] += other.attemptCounts[i];
+        }
+        return this;
+    }
+}
+
+// Plays games headlessly with the same range and attempt limit as the interactive game.
+// Games are split across the fork/join pool; each task gets its own SplittableRandom split off
+// from its parent's, so there is no shared random state and a seed reproduces a run exactly.
+class GuessingSimulation extends RecursiveTask<GuessingResult> {
+    private static final long serialVersionUID = 1L;
+    private static final long GAMES_PER_TASK = 64 * 1024;
+
+    private final GuessingStrategy strategy;
+    private final NumberHost host;
+    private final long games;
+    private final SplittableRandom random;
+
+    GuessingSimulation(GuessingStrategy strategy, NumberHost host, long games, SplittableRandom random) {
+        this.strategy = strategy;
+        this.host = host;
+        this.games = games;
+        this.random = random;
+    }
+
+    public static GuessingResult run(GuessingStrategy strategy, NumberHost host, long games, long seed) {
+        return ForkJoinPool.commonPool().invoke(new GuessingSimulation(strategy, host, games, new SplittableRandom(seed)));
+    }
+
+    // Play one game and return the attempt it was won on, or 0 if it was lost
+    static int play(GuessingStrategy strategy, NumberHost host, SplittableRandom random) {
+        int secret = NumberGuessingGame.LOWEST + random.nextInt(NumberGuessingGame.HIGHEST);
+        int low = NumberGuessingGame.LOWEST;
+        int high = NumberGuessingGame.HIGHEST;
+        for (int attempt = 1; attempt <= NumberGuessingGame.MAX_ATTEMPTS; attempt++) {
+            int guess = strategy.nextGuess(low, high, random);
+            int answer = host.answer(secret, guess, low, high);
+            if (answer == 0) {
+                return attempt;
+            } else if (answer > 0) {
+                high = Math.min(high, guess - 1);
+            } else {
+                low = Math.max(low, guess + 1);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    protected GuessingResult compute() {
+        if (games > GAMES_PER_TASK) {
+            long half = games / 2;
+            GuessingSimulation left = new GuessingSimulation(strategy, host, half, random.split());
+            left.fork();
+            GuessingResult right = new GuessingSimulation(strategy, host, games - half, random).compute();
+            return left.join().merge(right);
+        }
+        long[] attemptCounts = new long[NumberGuessingGame.MAX_ATTEMPTS + 1];
+        for (long game = 0; game < games; game++) {
+            attemptCounts[play(strategy, host, random)]++;
+        }
+        return new GuessingResult(attemptCounts);
+    }
+}
+
+// A player's score at one moment; leaderboard order is highest score first, then player id
+class LeaderboardEntry implements Comparable<LeaderboardEntry> {
+    private final String playerId;
+    private final long score;
+
+    public LeaderboardEntry(String playerId, long score) {
+        this.playerId = playerId;
+        this.score = score;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    @Override
+    public int compareTo(LeaderboardEntry other) {
+        int byScore = Long.compare(other.score, score);
+        return byScore != 0 ? byScore : playerId.compareTo(other.playerId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LeaderboardEntry)) {
+            return false;
+        }
+        LeaderboardEntry other = (LeaderboardEntry) o;
+        return score == other.score && playerId.equals(other.playerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return playerId.hashCode() * 31 + Long.hashCode(score);
+    }
+}
+
+// Live scores of every player. Entries are kept sorted in a concurrent skip list, so a top-N query
+// walks just N nodes. A second skip list counts players per score, so a player's rank is found by
+// summing the counts of the higher scores, which are far fewer than the players. Scores nobody holds
+// any more are dropped from the counts, so that sum stays short.
+// Updates to one player are serialized by the player map; different players update in parallel.
+// A query racing with an update may see the player's old or new score, but never both.
+class Leaderboard {
+    private final ConcurrentHashMap<String, LeaderboardEntry> players = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<LeaderboardEntry> ranking = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListMap<Long, Long> playersByScore = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    // Add points to a player's score, adding the player if needed, and return the new score
+    public long addPoints(String playerId, long points) {
+        return players.compute(playerId, (id, previous) -> {
+            // An unchanged score would add an entry equal to the one being removed, which
+            // would then drop the player from the ranking
+            if (previous != null && points == 0) {
+                return previous;
+            }
+            LeaderboardEntry updated = new LeaderboardEntry(id, (previous == null ? 0 : previous.getScore()) + points);
+            ranking.add(updated);
+            playersByScore.merge(updated.getScore(), 1L, Long::sum);
+            if (previous != null) {
+                ranking.remove(previous);
+                playersByScore.computeIfPresent(previous.getScore(), (score, count) -> count == 1 ? null : count - 1);
+            }
+            return updated;
+        }).getScore();
+    }
+
+    // Make sure a player is listed, with a score of 0 if they are new
+    public void join(String playerId) {
+        addPoints(playerId, 0);
+    }
+
+    public long getScore(String playerId) {
+        LeaderboardEntry entry = players.get(playerId);
+        return entry == null ? 0 : entry.getScore();
+    }
+
+    // 1 for the leader; players with equal scores share a rank. 0 for an unknown player.
+    public long rankOf(String playerId) {
+        LeaderboardEntry entry = players.get(playerId);
+        if (entry == null) {
+            return 0;
+        }
+        long higher = 0;
+        for (long count : playersByScore.headMap(entry.getScore(), false).values()) {
+            higher += count;
+        }
+        return higher + 1;
+    }
+
+    // The n best players, best first; fewer if fewer have joined
+    public List<LeaderboardEntry> top(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative leaderboard size: " + n);
+        }
+        List<LeaderboardEntry> top = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (LeaderboardEntry entry : ranking) {
+            if (top.size() == n) {
+                break;
+            }
+            // During an update a player is briefly listed under both scores; keep the first
+            if (seen.add(entry.getPlayerId())) {
+                top.add(entry);
+            }
+        }
+        return top;
+    }
+
+    public int size() {
+        return players.size();
+    }
+}
+
+// One player's connection to the game server: rounds of guessing plus leaderboard queries.
+// Protocol lines: NAME <player>, NEW, GUESS <n>, TOP [n] (at least 1, at most MAX_TOP are listed), RANK, QUIT.
+class GuessingSession {
+    static final int DEFAULT_TOP = 10;
+    // Larger TOP requests are cut to this many players, so one reply stays small
+    static final int MAX_TOP = 100;
+
+    private final Leaderboard leaderboard;
+    private final SplittableRandom random;
+    private String playerId;
+    private int secret;
+    private int attempts;
+    private boolean playing;
+
+    public GuessingSession(Leaderboard leaderboard, SplittableRandom random) {
+        this.leaderboard = leaderboard;
+        this.random = random;
+    }
+
+    public boolean isClosed(String reply) {
+        return reply.equals("BYE");
+    }
+
+    // Handle one protocol line and return the reply line
+    public String handle(String line) {
+        String[] parts = line.trim().split("\\s+");
+        String command = parts[0].toUpperCase(Locale.ROOT);
+        try {
+            if (command.equals("QUIT")) {
+                return "BYE";
+            }
+            if (command.equals("NAME") && parts.length == 2) {
+                playerId = parts[1];
+                leaderboard.join(playerId);
+                return "OK " + leaderboard.getScore(playerId);
+            }
+            if (playerId == null) {
+                return "ERR NO_NAME";
+            }
+            if (command.equals("NEW") && parts.length == 1) {
+                secret = NumberGuessingGame.LOWEST + random.nextInt(NumberGuessingGame.HIGHEST);
+                attempts = 0;
+                playing = true;
+                return "ROUND " + NumberGuessingGame.LOWEST + " " + NumberGuessingGame.HIGHEST + " " + NumberGuessingGame.MAX_ATTEMPTS;
+            }
+            if (command.equals("GUESS") && parts.length == 2) {
+                return guess(Integer.parseInt(parts[1]));
+            }
+            if (command.equals("TOP") && parts.length <= 2) {
+                int n = parts.length == 2 ? Integer.parseInt(parts[1]) : DEFAULT_TOP;
+                if (n < 1) {
+                    return "ERR INVALID_COUNT";
+                }
+                StringBuilder reply = new StringBuilder("TOP");
+                for (LeaderboardEntry entry : leaderboard.top(Math.min(n, MAX_TOP))) {
+                    reply.append(' ').append(entry.getPlayerId()).append(':').append(entry.getScore());
+                }
+                return reply.toString();
+            }
+            if (command.equals("RANK") && parts.length == 1) {
+                return "RANK " + leaderboard.rankOf(playerId) + " " + leaderboard.getScore(playerId);
+            }
+        } catch (NumberFormatException e) {
+            return "ERR NOT_A_NUMBER";
+        }
+        return "ERR UNKNOWN_COMMAND";
+    }
+
+    private String guess(int guess) {
+        if (!playing) {
+            return "ERR NO_ROUND";
+        }
+        attempts++;
+        if (guess == secret) {
+            playing = false;
+            NumberGuessingGame.gameFinished(attempts, true);
+            return "CORRECT " + leaderboard.addPoints(playerId, 1);
+        }
+        if (attempts == NumberGuessingGame.MAX_ATTEMPTS) {
+            playing = false;
+            NumberGuessingGame.gameFinished(attempts, false);
+            return "LOST " + secret;
+        }
+        return guess > secret ? "HIGH" : "LOW";
+    }
+}
+
+// Serves game sessions over a loopback socket, one thread per player.
+// Virtual threads are used when the JVM has them (Java 21+); older JVMs fall back to a cached pool.
+class GuessingServer implements AutoCloseable {
+    private final Leaderboard leaderboard;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final SplittableRandom random = new SplittableRandom();
+
+    public GuessingServer(Leaderboard leaderboard, int port) throws IOException {
+        this.leaderboard = leaderboard;
+        this.serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+        this.executor = SessionExecutors.newPerTaskExecutor();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Accept connections until the server is closed
+    public void start() {
+        executor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    SplittableRandom sessionRandom;
+                    synchronized (random) {
+                        sessionRandom = random.split();
+                    }
+                    executor.execute(() -> serve(socket, sessionRandom));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        System.err.println("Failed to accept player connection: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void serve(Socket socket, SplittableRandom sessionRandom) {
+        GuessingSession session = new GuessingSession(leaderboard, sessionRandom);
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(connection.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            connection.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String reply = session.handle(line);
+                out.println(reply);
+                out.flush();
+                if (session.isClosed(reply)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // The player went away; their score stays on the leaderboard
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
+
+// Bots that play rounds against a game server with a guessing strategy, then a report of the
+// score update rate and of leaderboard query latency under that load
+class GuessingLoadGenerator {
+    public static void run(GuessingServer server, Leaderboard leaderboard, int players, int rounds) throws Exception {
+        ExecutorService executor = SessionExecutors.newPerTaskExecutor();
+        List<Future<Integer>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < players; i++) {
+            String playerId = "P" + i;
+            results.add(executor.submit(() -> playRounds(server.getPort(), playerId, rounds)));
+        }
+
+        // Query the leaderboard while the bots are playing
+        long[] topLatencies = new long[1000];
+        long[] rankLatencies = new long[1000];
+        SplittableRandom random = new SplittableRandom();
+        for (int i = 0; i < topLatencies.length; i++) {
+            long begin = System.nanoTime();
+            leaderboard.top(10);
+            topLatencies[i] = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            leaderboard.rankOf("P" + random.nextInt(players));
+            rankLatencies[i] = System.nanoTime() - begin;
+            Thread.sleep(1);
+        }
+
+        long wins = 0;
+        for (Future<Integer> result : results) {
+            wins += result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        System.out.printf("%d players, %d rounds, %d score updates in %.2f s (%.0f updates/s)%n",
+                players, (long) players * rounds, wins, seconds, wins / seconds);
+        Arrays.sort(topLatencies);
+        Arrays.sort(rankLatencies);
+        System.out.printf("TOP 10 p50=%.1f us p99=%.1f us%n", topLatencies[499] / 1e3, topLatencies[989] / 1e3);
+        System.out.printf("RANK   p50=%.1f us p99=%.1f us%n", rankLatencies[499] / 1e3, rankLatencies[989] / 1e3);
+        List<LeaderboardEntry> top = leaderboard.top(3);
+        for (int i = 0; i < top.size(); i++) {
+            System.out.println((i + 1) + ". " + top.get(i).getPlayerId() + " " + top.get(i).getScore());
+        }
+        measureUpdates(leaderboard, players);
+    }
+
+    // Score updates straight into the leaderboard from every core, without the sockets in between
+    private static void measureUpdates(Leaderboard leaderboard, int players) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int updatesPerThread = 250_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom();
+                for (int i = 0; i < updatesPerThread; i++) {
+                    leaderboard.addPoints("P" + random.nextInt(players), 1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        System.out.printf("Direct leaderboard updates on %d threads: %.0f updates/s%n",
+                threads, (double) threads * updatesPerThread / seconds);
+    }
+
+    // One bot: play rounds with random guesses and return the number of rounds won
+    private static int playRounds(int port, String playerId, int rounds) throws IOException {
+        SplittableRandom random = new SplittableRandom();
+        int wins = 0;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            out.println("NAME " + playerId);
+            out.flush();
+            in.readLine();
+            for (int round = 0; round < rounds; round++) {
+                out.println("NEW");
+                out.flush();
+                in.readLine();
+                int low = NumberGuessingGame.LOWEST;
+                int high = NumberGuessingGame.HIGHEST;
+                while (true) {
+                    int guess = GuessingStrategy.RANDOM.nextGuess(low, high, random);
+                    out.println("GUESS " + guess);
+                    out.flush();
+                    String reply = in.readLine();
+                    if (reply == null || reply.startsWith("LOST")) {
+                        break;
+                    } else if (reply.startsWith("CORRECT")) {
+                        wins++;
+                        break;
+                    } else if (reply.equals("HIGH")) {
+                        high = guess - 1;
+                    } else {
+                        low = guess + 1;
+                    }
+                }
+            }
+            out.println("QUIT");
+            out.flush();
+        }
+        return wins;
+    }
+}
 
 public class NumberGuessingGame {
-    
-    public static void main(String[] args) {
+    static final int LOWEST = 1;
+    static final int HIGHEST = 100;
+    static final int MAX_ATTEMPTS = 7;
+
+    private static final MetricCounter GAMES_WON = Metrics.counter("guessing_games_total{result=\"won\"}");
+    private static final MetricCounter GAMES_LOST = Metrics.counter("guessing_games_total{result=\"lost\"}");
+    private static final MetricHistogram GUESSES_PER_GAME = Metrics.histogram("guessing_guesses_per_game");
+
+    // Count a finished game, interactive or played over the server
+    static void gameFinished(int attempts, boolean won) {
+        (won ? GAMES_WON : GAMES_LOST).increment();
+        GUESSES_PER_GAME.record(attempts);
+    }
+
+    // Simulation mode: --simulate <binary|random> [games] [fair|adversarial] [seed]
+    private static void simulate(String[] args) {
+        GuessingStrategy strategy = GuessingStrategy.named(args[1]);
+        long games = args.length > 2 ? Long.parseLong(args[2]) : 1_000_000;
+        NumberHost host = args.length > 3 ? NumberHost.valueOf(args[3].toUpperCase(Locale.ROOT)) : NumberHost.FAIR;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        long start = System.nanoTime();
+        GuessingResult result = GuessingSimulation.run(strategy, host, games, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games (%s guesser, %s host) in %.2f s, %.0f games/s%n", result.getGames(),
+                args[1].toLowerCase(Locale.ROOT), host.name().toLowerCase(Locale.ROOT), seconds, result.getGames() / seconds);
+        System.out.printf("Win rate: %.4f%%, average attempts to win: %.3f%n",
+                result.getWinRate() * 100, result.getAverageAttemptsToWin());
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            System.out.printf("  won on attempt %d: %d%n", attempt, result.getWinsOnAttempt(attempt));
+        }
+        System.out.printf("  lost: %d%n", result.getGames() - result.getWins());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Metrics.start();
+        if (args.length >= 2 && args[0].equals("--simulate")) {
+            simulate(args);
+            return;
+        }
+        // "serve [port]" runs the multiplayer server (port 9092 by default, clear of the ATM and
+        // quiz servers), "load [players] [rounds]" plays bots against an in-process server over loopback
+        if (args.length > 0 && (args[0].equals("serve") || args[0].equals("load"))) {
+            boolean serve = args[0].equals("serve");
+            Leaderboard leaderboard = new Leaderboard();
+            GuessingServer server = new GuessingServer(leaderboard, serve ? intArg(args, 1, 9092) : 0);
+            server.start();
+            if (serve) {
+                System.out.println("Number guessing server listening on port " + server.getPort());
+                Thread.currentThread().join();
+            }
+            GuessingLoadGenerator.run(server, leaderboard, intArg(args, 1, 1000), intArg(args, 2, 20));
+            server.close();
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
         Random random = new Random();
         int score = 0;
@@ -12,9 +624,9 @@ public class NumberGuessingGame {
         System.out.println("Welcome to the Number Guessing Game!");
 
         while (playAgain) {
-            int generatedNumber = random.nextInt(100) + 1; // Random number between 1 and 100
+            int generatedNumber = random.nextInt(HIGHEST) + LOWEST; // Random number between 1 and 100
             int attempts = 0;
-            int maxAttempts = 7; // Limit the number of attempts to 7
+            int maxAttempts = MAX_ATTEMPTS; // Limit the number of attempts to 7
             boolean hasGuessedCorrectly = false;
             
             System.out.println("\nI have generated a number between 1 and 100. Can you guess it?");
@@ -38,6 +650,7 @@ public class NumberGuessingGame {
             if (!hasGuessedCorrectly) {
                 System.out.println("You've used all " + maxAttempts + " attempts. The correct number was: " + generatedNumber);
             }
+            gameFinished(attempts, hasGuessedCorrectly);
             
             System.out.print("\nDo you want to play another round? (yes/no): ");
             playAgain = scanner.next().equalsIgnoreCase("yes");
@@ -46,4 +659,8 @@ public class NumberGuessingGame {
         System.out.println("\nGame over! Your total score is: " + score);
         scanner.close();
     }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
 }
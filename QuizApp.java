@@ -1,21 +1,60 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 // Class representing a quiz question
+// Questions are immutable so one instance can be shared by every session
 class QuizQuestion {
-    private String question;
-    private String[] options;
-    private int correctAnswerIndex;
+    private final String question;
+    private final String[] options;
+    private final int correctAnswerIndex;
+    private final String topic;
+    private final int difficulty;
 
     // Constructor to initialize the question, options, and correct answer index
     public QuizQuestion(String question, String[] options, int correctAnswerIndex) {
+        this(question, options, correctAnswerIndex, "General", 1);
+    }
+
+    // Constructor for questions that are sampled by topic and difficulty
+    public QuizQuestion(String question, String[] options, int correctAnswerIndex, String topic, int difficulty) {
         this.question = question;
-        this.options = options;
+        this.options = options.clone();
         this.correctAnswerIndex = correctAnswerIndex;
+        this.topic = topic;
+        this.difficulty = difficulty;
     }
 
     // Getters for question and options
@@ -24,7 +63,27 @@ class QuizQuestion {
     }
 
     public String[] getOptions() {
-        return options;
+        return options.clone();
+    }
+
+    public int getOptionCount() {
+        return options.length;
+    }
+
+    public String getOption(int index) {
+        return options[index];
+    }
+
+    public int getCorrectAnswerIndex() {
+        return correctAnswerIndex;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
     }
 
     // Method to check if the selected answer is correct
@@ -33,103 +92,921 @@ class QuizQuestion {
     }
 }
 
-// Main Quiz class
-public class QuizApp {
-    private static final int TIME_LIMIT_PER_QUESTION = 10; // time limit in seconds
-    private List<QuizQuestion> questions;
-    private int score = 0;
-    private List<String> resultSummary = new ArrayList<>();
+// Immutable set of questions shared by all quiz sessions.
+// Questions are grouped into strata of the same topic and difficulty for sampling.
+interface QuestionBank {
+    int size();
+
+    QuizQuestion get(int index);
+
+    int getStratumCount();
 
-    // Constructor to initialize quiz questions
-    public QuizApp() {
-        questions = new ArrayList<>();
-        loadQuestions();
+    int getStratumSize(int stratum);
+
+    // Bank index of the k-th question of a stratum
+    int getStratumQuestion(int stratum, int k);
+
+    // The built-in general knowledge questions
+    static QuestionBank defaultBank() {
+        return new InMemoryQuestionBank(Arrays.asList(
+                new QuizQuestion("What is the capital of France?", new String[]{"1. Berlin", "2. Madrid", "3. Paris", "4. Rome"}, 2, "Geography", 1),
+                new QuizQuestion("Which planet is known as the Red Planet?", new String[]{"1. Earth", "2. Mars", "3. Venus", "4. Jupiter"}, 1, "Science", 1),
+                new QuizQuestion("Who wrote 'Hamlet'?", new String[]{"1. Charles Dickens", "2. J.K. Rowling", "3. William Shakespeare", "4. Mark Twain"}, 2, "Literature", 1),
+                new QuizQuestion("What is the largest ocean on Earth?", new String[]{"1. Atlantic Ocean", "2. Indian Ocean", "3. Arctic Ocean", "4. Pacific Ocean"}, 3, "Geography", 1),
+                new QuizQuestion("What is the chemical symbol for water?", new String[]{"1. O2", "2. CO2", "3. H2O", "4. N2"}, 2, "Science", 1)));
     }
+}
+
+// Question bank held on the heap, in the order the questions were given
+class InMemoryQuestionBank implements QuestionBank {
+    private final QuizQuestion[] questions;
+    private final int[][] strata;
 
-    // Load quiz questions into the list
-    private void loadQuestions() {
-        questions.add(new QuizQuestion("What is the capital of France?", new String[]{"1. Berlin", "2. Madrid", "3. Paris", "4. Rome"}, 2));
-        questions.add(new QuizQuestion("Which planet is known as the Red Planet?", new String[]{"1. Earth", "2. Mars", "3. Venus", "4. Jupiter"}, 1));
-        questions.add(new QuizQuestion("Who wrote 'Hamlet'?", new String[]{"1. Charles Dickens", "2. J.K. Rowling", "3. William Shakespeare", "4. Mark Twain"}, 2));
-        questions.add(new QuizQuestion("What is the largest ocean on Earth?", new String[]{"1. Atlantic Ocean", "2. Indian Ocean", "3. Arctic Ocean", "4. Pacific Ocean"}, 3));
-        questions.add(new QuizQuestion("What is the chemical symbol for water?", new String[]{"1. O2", "2. CO2", "3. H2O", "4. N2"}, 2));
+    public InMemoryQuestionBank(List<QuizQuestion> questions) {
+        this.questions = questions.toArray(new QuizQuestion[0]);
+        Map<String, List<Integer>> byStratum = new LinkedHashMap<>();
+        for (int i = 0; i < this.questions.length; i++) {
+            QuizQuestion question = this.questions[i];
+            byStratum.computeIfAbsent(question.getTopic() + "/" + question.getDifficulty(), key -> new ArrayList<>()).add(i);
+        }
+        strata = new int[byStratum.size()][];
+        int stratum = 0;
+        for (List<Integer> members : byStratum.values()) {
+            strata[stratum++] = members.stream().mapToInt(Integer::intValue).toArray();
+        }
     }
 
-    // Start the quiz
-    public void start() {
-        Scanner scanner = new Scanner(System.in);
+    @Override
+    public int size() {
+        return questions.length;
+    }
 
-        for (int i = 0; i < questions.size(); i++) {
-            QuizQuestion currentQuestion = questions.get(i);
-            boolean answered = askQuestion(currentQuestion, scanner);
-            if (!answered) {
-                System.out.println("Time's up! Moving to the next question.");
-                resultSummary.add("Question " + (i + 1) + ": Not answered (Time's up)");
+    @Override
+    public QuizQuestion get(int index) {
+        return questions[index];
+    }
+
+    @Override
+    public int getStratumCount() {
+        return strata.length;
+    }
+
+    @Override
+    public int getStratumSize(int stratum) {
+        return strata[stratum].length;
+    }
+
+    @Override
+    public int getStratumQuestion(int stratum, int k) {
+        return strata[stratum][k];
+    }
+}
+
+// Question bank read from a memory-mapped file. Only the small stratum table is loaded at
+// open time; a question is decoded from the mapping when it is drawn, so opening a bank of
+// millions of questions costs neither time nor heap in proportion to its size.
+//
+// File layout (big-endian):
+//   int magic, int questionCount, int stratumCount
+//   per stratum: int firstQuestion, int questionCount, int difficulty, string topic
+//   per question: long offset of its record
+//   per question: byte correctIndex, byte optionCount, string question, string option...
+// A string is an unsigned short byte length followed by that many bytes of standard UTF-8.
+// Questions are stored sorted by topic and difficulty, so every stratum is a contiguous range.
+class MappedQuestionBank implements QuestionBank {
+    private static final int MAGIC = 0x5155495a;
+
+    private final MappedByteBuffer buffer;
+    private final int questionCount;
+    private final long indexStart;
+    private final int[] stratumStarts;
+    private final int[] stratumSizes;
+    private final String[] stratumTopics;
+    private final int[] stratumDifficulties;
+
+    private MappedQuestionBank(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a question bank file");
+        }
+        questionCount = buffer.getInt(4);
+        int strata = buffer.getInt(8);
+        stratumStarts = new int[strata];
+        stratumSizes = new int[strata];
+        stratumTopics = new String[strata];
+        stratumDifficulties = new int[strata];
+        int position = 12;
+        for (int i = 0; i < strata; i++) {
+            stratumStarts[i] = buffer.getInt(position);
+            stratumSizes[i] = buffer.getInt(position + 4);
+            stratumDifficulties[i] = buffer.getInt(position + 8);
+            int length = Short.toUnsignedInt(buffer.getShort(position + 12));
+            stratumTopics[i] = readString(position + 14, length);
+            position += 14 + length;
+        }
+        indexStart = position;
+    }
+
+    public static MappedQuestionBank open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Question bank larger than 2 GB: " + file);
+            }
+            return new MappedQuestionBank(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Write questions to a bank file, grouped by topic and difficulty
+    public static void write(Path file, List<QuizQuestion> questions) throws IOException {
+        List<QuizQuestion> sorted = new ArrayList<>(questions);
+        sorted.sort(Comparator.comparing(QuizQuestion::getTopic).thenComparingInt(QuizQuestion::getDifficulty));
+
+        // Strata and the size of everything that precedes the question records
+        List<int[]> strata = new ArrayList<>();
+        List<String> topics = new ArrayList<>();
+        long headerSize = 12;
+        for (int i = 0; i < sorted.size(); i++) {
+            QuizQuestion question = sorted.get(i);
+            int last = strata.size() - 1;
+            if (last < 0 || !topics.get(last).equals(question.getTopic()) || strata.get(last)[2] != question.getDifficulty()) {
+                strata.add(new int[]{i, 0, question.getDifficulty()});
+                topics.add(question.getTopic());
+                headerSize += 14 + encode(question.getTopic()).length;
+            }
+            strata.get(strata.size() - 1)[1]++;
+        }
+        long offset = headerSize + 8L * sorted.size();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(sorted.size());
+            out.writeInt(strata.size());
+            for (int i = 0; i < strata.size(); i++) {
+                out.writeInt(strata.get(i)[0]);
+                out.writeInt(strata.get(i)[1]);
+                out.writeInt(strata.get(i)[2]);
+                writeString(out, topics.get(i));
+            }
+            for (QuizQuestion question : sorted) {
+                out.writeLong(offset);
+                offset += 2 + 2 + encode(question.getQuestion()).length;
+                for (int i = 0; i < question.getOptionCount(); i++) {
+                    offset += 2 + encode(question.getOption(i)).length;
+                }
+            }
+            for (QuizQuestion question : sorted) {
+                out.writeByte(question.getCorrectAnswerIndex());
+                out.writeByte(question.getOptionCount());
+                writeString(out, question.getQuestion());
+                for (int i = 0; i < question.getOptionCount(); i++) {
+                    writeString(out, question.getOption(i));
+                }
             }
         }
+    }
 
-        // Show final results
-        showResult();
-        scanner.close();
+    // Standard UTF-8 bytes of a string, which must fit the unsigned short length prefix
+    private static byte[] encode(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for a question bank: " + bytes.length + " bytes");
+        }
+        return bytes;
     }
 
-    // Method to display a question and get user's answer within the time limit
-    private boolean askQuestion(QuizQuestion question, Scanner scanner) {
-        System.out.println("\n" + question.getQuestion());
-        String[] options = question.getOptions();
-        for (String option : options) {
-            System.out.println(option);
+    // Written by hand rather than with writeUTF, whose modified UTF-8 encodes NUL and
+    // supplementary characters differently from the standard UTF-8 that readString() decodes
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = encode(text);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return questionCount;
+    }
+
+    @Override
+    public QuizQuestion get(int index) {
+        int position = (int) buffer.getLong((int) (indexStart + 8L * index));
+        int correct = buffer.get(position);
+        int optionCount = buffer.get(position + 1);
+        position += 2;
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        String text = readString(position + 2, length);
+        position += 2 + length;
+        String[] options = new String[optionCount];
+        for (int i = 0; i < optionCount; i++) {
+            length = Short.toUnsignedInt(buffer.getShort(position));
+            options[i] = readString(position + 2, length);
+            position += 2 + length;
         }
+        int stratum = stratumOf(index);
+        return new QuizQuestion(text, options, correct, stratumTopics[stratum], stratumDifficulties[stratum]);
+    }
+
+    private int stratumOf(int index) {
+        int found = Arrays.binarySearch(stratumStarts, index);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    @Override
+    public int getStratumCount() {
+        return stratumStarts.length;
+    }
+
+    @Override
+    public int getStratumSize(int stratum) {
+        return stratumSizes[stratum];
+    }
+
+    @Override
+    public int getStratumQuestion(int stratum, int k) {
+        return stratumStarts[stratum] + k;
+    }
+}
 
-        AtomicBoolean answered = new AtomicBoolean(false);
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            public void run() {
-                if (!answered.get()) {
-                    System.out.println("\nTime's up!");
-                    answered.set(true);
+// Draws the questions for one session: without replacement, with every topic and difficulty
+// represented in proportion to its share of the bank
+class QuestionSampler {
+    public static int[] draw(QuestionBank bank, int count, SplittableRandom random) {
+        count = Math.min(count, bank.size());
+        int strata = bank.getStratumCount();
+
+        // Proportional allocation, handing the leftover seats to the largest remainders
+        int[] quota = new int[strata];
+        double[] remainder = new double[strata];
+        int allocated = 0;
+        for (int i = 0; i < strata; i++) {
+            double exact = (double) count * bank.getStratumSize(i) / bank.size();
+            quota[i] = (int) exact;
+            remainder[i] = exact - quota[i];
+            allocated += quota[i];
+        }
+        while (allocated < count) {
+            int best = -1;
+            for (int i = 0; i < strata; i++) {
+                if (quota[i] < bank.getStratumSize(i) && (best < 0 || remainder[i] > remainder[best])) {
+                    best = i;
                 }
             }
-        }, TIME_LIMIT_PER_QUESTION * 1000);
+            quota[best]++;
+            remainder[best] = -1;
+            allocated++;
+        }
 
-        System.out.print("Your answer (1-4): ");
-        int userAnswer = -1;
-        while (!answered.get()) {
-            if (scanner.hasNextInt()) {
-                userAnswer = scanner.nextInt() - 1;
-                answered.set(true);
+        // Floyd's algorithm picks k distinct members of a stratum in O(k), whatever its size
+        int[] drawn = new int[count];
+        int next = 0;
+        for (int i = 0; i < strata; i++) {
+            int size = bank.getStratumSize(i);
+            Set<Integer> picked = new HashSet<>();
+            for (int j = size - quota[i]; j < size; j++) {
+                int candidate = random.nextInt(j + 1);
+                picked.add(picked.contains(candidate) ? j : candidate);
+            }
+            for (int k : picked) {
+                drawn[next++] = bank.getStratumQuestion(i, k);
             }
         }
-        timer.cancel();
 
-        if (answered.get()) {
-            if (question.isCorrect(userAnswer)) {
-                System.out.println("Correct!");
-                score++;
-                resultSummary.add("Question: " + question.getQuestion() + " | Your answer: Correct");
-            } else {
-                System.out.println("Incorrect.");
-                resultSummary.add("Question: " + question.getQuestion() + " | Your answer: Incorrect");
+        // Shuffle so the strata are interleaved
+        for (int i = drawn.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = drawn[i];
+            drawn[i] = drawn[j];
+            drawn[j] = swap;
+        }
+        return drawn;
+    }
+}
+
+// Everything one quiz taker owns: the bank indexes of the questions drawn for them, the score and
+// two bitsets recording which questions were answered in time and which were answered correctly.
+// The summary is rebuilt from these at the end.
+class QuizSessionState {
+    private final int[] questionIds;
+    private final long[] answered;
+    private final long[] correct;
+    private int score;
+
+    public QuizSessionState(int[] questionIds) {
+        this.questionIds = questionIds;
+        answered = new long[(questionIds.length + 63) >>> 6];
+        correct = new long[answered.length];
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    public int getQuestionId(int question) {
+        return questionIds[question];
+    }
+
+    public void recordAnswer(int question, boolean isCorrect) {
+        answered[question >>> 6] |= 1L << question;
+        if (isCorrect) {
+            correct[question >>> 6] |= 1L << question;
+            score++;
+        }
+    }
+
+    public boolean isAnswered(int question) {
+        return (answered[question >>> 6] & (1L << question)) != 0;
+    }
+
+    public boolean isCorrect(int question) {
+        return (correct[question >>> 6] & (1L << question)) != 0;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
+
+// One scheduler thread shared by every quiz: question timeouts are scheduled tasks,
+// not a Timer thread per question. The timer thread only hands each task to the given executor,
+// so whatever a timeout sets off (output, the next question) never holds up other sessions' timeouts.
+// Most timeouts are cancelled because the answer came first; they are removed from the queue
+// right away rather than left there until they would have fired.
+class QuizTimer {
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "quiz-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    static ScheduledFuture<?> schedule(Runnable task, long delayMillis, Executor executor) {
+        return SCHEDULER.schedule(() -> executor.execute(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
+
+// Non-blocking source of answer lines.
+// Lines are pushed in by whoever reads the input (a console thread, a socket handler) and handed
+// out as futures, so a quiz waiting for an answer holds no thread. Lines that arrive while nobody
+// is waiting are kept for the next question, like typed-ahead console input.
+class LineAnswerSource {
+    private final ArrayDeque<String> lines = new ArrayDeque<>();
+    private CompletableFuture<String> waiting;
+    private boolean closed;
+
+    // Future for the next line; completes with null once the input has ended
+    public synchronized CompletableFuture<String> nextLine() {
+        if (!lines.isEmpty()) {
+            return CompletableFuture.completedFuture(lines.poll());
+        }
+        if (closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        waiting = new CompletableFuture<>();
+        return waiting;
+    }
+
+    // The waiter is completed outside the lock, because completing it runs the quiz forward,
+    // which will ask for the next line
+    public void offer(String line) {
+        while (true) {
+            CompletableFuture<String> receiver;
+            synchronized (this) {
+                receiver = waiting;
+                waiting = null;
+                if (receiver == null || receiver.isDone()) {
+                    lines.add(line);
+                    return;
+                }
+            }
+            if (receiver.complete(line)) {
+                return;
+            }
+            // The waiter was cancelled (its question timed out) in the meantime; do not lose the line
+        }
+    }
+
+    public void close() {
+        CompletableFuture<String> receiver;
+        synchronized (this) {
+            closed = true;
+            receiver = waiting;
+            waiting = null;
+        }
+        if (receiver != null) {
+            receiver.complete(null);
+        }
+    }
+
+    // Feed lines from a stream on a daemon thread
+    public static LineAnswerSource fromStream(InputStream stream) {
+        LineAnswerSource source = new LineAnswerSource();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(stream))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    source.offer(line);
+                }
+            } catch (IOException e) {
+                // Treat a broken input like the end of input
+            }
+            source.close();
+        }, "quiz-input");
+        reader.setDaemon(true);
+        reader.start();
+        return source;
+    }
+}
+
+// Point-in-time copy of the quiz analytics; totals are read one counter at a time while
+// sessions keep running, so they are each exact but not taken at a single instant
+class QuizAnalyticsSnapshot {
+    private final long sessionsCompleted;
+    private final long sessionsAbandoned;
+    private final long questionsAsked;
+    private final long answersCorrect;
+    private final long answersIncorrect;
+    private final long timeouts;
+    private final long[] answerTimeHistogram;
+    private final long[] scoreDistribution;
+
+    QuizAnalyticsSnapshot(long sessionsCompleted, long sessionsAbandoned, long questionsAsked, long answersCorrect,
+                          long answersIncorrect, long timeouts, long[] answerTimeHistogram, long[] scoreDistribution) {
+        this.sessionsCompleted = sessionsCompleted;
+        this.sessionsAbandoned = sessionsAbandoned;
+        this.questionsAsked = questionsAsked;
+        this.answersCorrect = answersCorrect;
+        this.answersIncorrect = answersIncorrect;
+        this.timeouts = timeouts;
+        this.answerTimeHistogram = answerTimeHistogram;
+        this.scoreDistribution = scoreDistribution;
+    }
+
+    public long getSessionsCompleted() {
+        return sessionsCompleted;
+    }
+
+    // Sessions whose input ended before the last question; they are not in the score distribution
+    public long getSessionsAbandoned() {
+        return sessionsAbandoned;
+    }
+
+    public long getQuestionsAsked() {
+        return questionsAsked;
+    }
+
+    public long getAnswersCorrect() {
+        return answersCorrect;
+    }
+
+    public long getAnswersIncorrect() {
+        return answersIncorrect;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    // Bucket i counts answers given within [i, i + 1) * QuizAnalytics.ANSWER_TIME_BUCKET_MILLIS
+    public long[] getAnswerTimeHistogram() {
+        return answerTimeHistogram.clone();
+    }
+
+    // Bucket p counts finished sessions that scored p percent
+    public long[] getScoreDistribution() {
+        return scoreDistribution.clone();
+    }
+
+    // Answer time below which the given fraction of answers fell, in milliseconds. Answers are
+    // taken as spread evenly across their bucket, so the estimate is interpolated within it
+    // rather than rounded up to the bucket's upper bound.
+    public long answerTimePercentile(double fraction) {
+        long total = 0;
+        for (long count : answerTimeHistogram) {
+            total += count;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < answerTimeHistogram.length; i++) {
+            long count = answerTimeHistogram[i];
+            if (seen + count >= rank && count > 0) {
+                double within = (rank - seen - 0.5) / count;
+                return Math.round((i + within) * QuizAnalytics.ANSWER_TIME_BUCKET_MILLIS);
+            }
+            seen += count;
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        long answered = answersCorrect + answersIncorrect;
+        return String.format("sessions=%d abandoned=%d asked=%d correct=%.1f%% timeouts=%d answer p50=%dms p99=%dms",
+                sessionsCompleted, sessionsAbandoned, questionsAsked, answered == 0 ? 0.0 : 100.0 * answersCorrect / answered,
+                timeouts, answerTimePercentile(0.50), answerTimePercentile(0.99));
+    }
+}
+
+// Live quiz analytics shared by all sessions over one bank. Every update is a counter increment:
+// LongAdders for the hot totals and histograms, and per-question counters in flat atomic arrays
+// (asked, answered and correct). Nothing is allocated per answer, and snapshot() can be taken at
+// any time without pausing sessions.
+class QuizAnalytics {
+    static final int ANSWER_TIME_BUCKET_MILLIS = 100;
+
+    private final AtomicLongArray asked;
+    private final AtomicLongArray answered;
+    private final AtomicLongArray correct;
+    private final LongAdder sessionsCompleted = new LongAdder();
+    private final LongAdder sessionsAbandoned = new LongAdder();
+    private final LongAdder questionsAsked = new LongAdder();
+    private final LongAdder answersCorrect = new LongAdder();
+    private final LongAdder answersIncorrect = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder[] answerTimeHistogram;
+    private final LongAdder[] scoreDistribution;
+
+    public QuizAnalytics(int bankSize) {
+        asked = new AtomicLongArray(bankSize);
+        answered = new AtomicLongArray(bankSize);
+        correct = new AtomicLongArray(bankSize);
+        answerTimeHistogram = newAdders(QuizApp.TIME_LIMIT_PER_QUESTION * 1000 / ANSWER_TIME_BUCKET_MILLIS + 1);
+        scoreDistribution = newAdders(101);
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    void questionAsked(int questionId) {
+        asked.incrementAndGet(questionId);
+        questionsAsked.increment();
+    }
+
+    // answered is bumped before correct, and readers load correct first, so a reader never
+    // sees more correct answers than answers
+    void questionAnswered(int questionId, boolean isCorrect, long elapsedNanos) {
+        answered.incrementAndGet(questionId);
+        if (isCorrect) {
+            correct.incrementAndGet(questionId);
+        }
+        (isCorrect ? answersCorrect : answersIncorrect).increment();
+        int bucket = (int) Math.min(answerTimeHistogram.length - 1, elapsedNanos / 1_000_000 / ANSWER_TIME_BUCKET_MILLIS);
+        answerTimeHistogram[bucket].increment();
+    }
+
+    void questionTimedOut() {
+        timeouts.increment();
+    }
+
+    void sessionCompleted(int score, int questionCount) {
+        sessionsCompleted.increment();
+        scoreDistribution[questionCount == 0 ? 0 : score * 100 / questionCount].increment();
+    }
+
+    void sessionAbandoned() {
+        sessionsAbandoned.increment();
+    }
+
+    public long getTimesAsked(int questionId) {
+        return asked.get(questionId);
+    }
+
+    public long getTimesAnswered(int questionId) {
+        return answered.get(questionId);
+    }
+
+    public long getTimesCorrect(int questionId) {
+        return correct.get(questionId);
+    }
+
+    // Share of the answers to a question that were correct, or NaN if it was never answered
+    public double getCorrectRate(int questionId) {
+        long timesCorrect = correct.get(questionId);
+        long timesAnswered = answered.get(questionId);
+        return timesAnswered == 0 ? Double.NaN : (double) timesCorrect / timesAnswered;
+    }
+
+    public QuizAnalyticsSnapshot snapshot() {
+        return new QuizAnalyticsSnapshot(sessionsCompleted.sum(), sessionsAbandoned.sum(), questionsAsked.sum(), answersCorrect.sum(),
+                answersIncorrect.sum(), timeouts.sum(), sums(answerTimeHistogram), sums(scoreDistribution));
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] values = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            values[i] = adders[i].sum();
+        }
+        return values;
+    }
+}
+
+// Serves quizzes over a loopback socket: every connection is an independent quiz session over
+// the shared question bank. Each connection's input is read on its own thread (a virtual thread
+// on Java 21+, a pooled platform thread otherwise); the quiz itself moves forward on the thread that
+// delivered an answer, or on the session executor after a timeout.
+class QuizServer implements AutoCloseable {
+    static final int QUESTIONS_PER_SESSION = 10;
+    private final QuestionBank bank;
+    private final QuizAnalytics analytics;
+    private final SplittableRandom random = new SplittableRandom();
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+
+    public QuizServer(QuestionBank bank, int port) throws IOException {
+        this.bank = bank;
+        this.analytics = new QuizAnalytics(bank.size());
+        this.serverSocket = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress());
+        this.executor = SessionExecutors.newPerTaskExecutor();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public QuizAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    // Accept connections until the server is closed
+    public void start() {
+        executor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        System.err.println("Failed to accept quiz connection: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    // The socket is closed when the quiz finishes or when the client stops sending, whichever comes first
+    private void serve(Socket socket) {
+        LineAnswerSource input = new LineAnswerSource();
+        try {
+            // Not auto-flushing: QuizApp flushes once per prompt instead of once per line
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+            int[] questionIds;
+            synchronized (random) {
+                questionIds = QuestionSampler.draw(bank, QUESTIONS_PER_SESSION, random.split());
+            }
+            new QuizApp(bank, questionIds, input, out, analytics, executor)
+                    .start().whenComplete((result, error) -> closeQuietly(socket));
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    input.offer(line);
+                }
             }
-            return true;
+        } catch (IOException e) {
+            // The connection closed, either by the client or because the quiz finished
+        }
+        input.close();
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed by the client
         }
-        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
+
+// Main Quiz class
+// A QuizApp is one quiz session: it shares the question bank and keeps only its own small state
+public class QuizApp {
+    static final int TIME_LIMIT_PER_QUESTION = 10; // time limit in seconds
+    private static final int TIMED_OUT = -1;
+    // The input ended (the client disconnected) while a question was open
+    private static final int INPUT_ENDED = -2;
+    private static final MetricCounter QUIZ_TIMEOUTS = Metrics.counter("quiz_timeouts_total");
+    private static final MetricHistogram QUIZ_ANSWER_LATENCY = Metrics.histogram("quiz_answer_latency_nanos");
+    private final QuestionBank questions;
+    private final QuizSessionState state;
+    private final LineAnswerSource input;
+    private final PrintStream out;
+    private final QuizAnalytics analytics;
+    private final Executor continuations;
+    private boolean abandoned;
+
+    // Constructor to start a session over every question of a shared bank, in order
+    public QuizApp(QuestionBank questions, LineAnswerSource input, PrintStream out) {
+        this(questions, allQuestions(questions), input, out, null);
+    }
+
+    // Constructor for a session that is alone in the process, such as the console quiz:
+    // it runs on after a timeout straight from the timer thread
+    public QuizApp(QuestionBank questions, int[] questionIds, LineAnswerSource input, PrintStream out, QuizAnalytics analytics) {
+        this(questions, questionIds, input, out, analytics, Runnable::run);
+    }
+
+    // Constructor to start a session over the given questions of a shared bank, reporting to the
+    // bank's analytics if there are any; after a timeout the quiz continues on the given executor
+    public QuizApp(QuestionBank questions, int[] questionIds, LineAnswerSource input, PrintStream out,
+                   QuizAnalytics analytics, Executor continuations) {
+        this.questions = questions;
+        this.state = new QuizSessionState(questionIds);
+        this.input = input;
+        this.out = out;
+        this.analytics = analytics;
+        this.continuations = continuations;
+    }
+
+    private static int[] allQuestions(QuestionBank bank) {
+        int[] ids = new int[bank.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    // Start the quiz; the returned future completes after the results have been shown.
+    // Questions are chained asynchronously, so a running quiz does not occupy a thread.
+    public CompletableFuture<Void> start() {
+        CompletableFuture<Void> quiz = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < state.getQuestionCount(); i++) {
+            int index = i;
+            quiz = quiz.thenCompose(ignored -> {
+                if (abandoned) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                // Decoded only now, so a mapped bank never materializes questions nobody is asked
+                int questionId = state.getQuestionId(index);
+                QuizQuestion currentQuestion = questions.get(questionId);
+                if (analytics != null) {
+                    analytics.questionAsked(questionId);
+                }
+                long askedAt = System.nanoTime();
+                return askQuestion(currentQuestion).thenAccept(answer -> {
+                    if (answer == INPUT_ENDED) {
+                        abandoned = true;
+                        return;
+                    }
+                    if (answer == TIMED_OUT) {
+                        out.println("\nTime's up! Moving to the next question.");
+                        if (analytics != null) {
+                            analytics.questionTimedOut();
+                        }
+                        return;
+                    }
+                    // One clock read serves both the latency metric and the analytics
+                    long elapsedNanos = System.nanoTime() - askedAt;
+                    QUIZ_ANSWER_LATENCY.record(elapsedNanos);
+                    boolean correct = currentQuestion.isCorrect(answer);
+                    out.println(correct ? "Correct!" : "Incorrect.");
+                    state.recordAnswer(index, correct);
+                    if (analytics != null) {
+                        analytics.questionAnswered(questionId, correct, elapsedNanos);
+                    }
+                });
+            });
+        }
+
+        // Show final results; a session whose input ended early is not scored
+        return quiz.thenRun(() -> {
+            if (analytics != null) {
+                if (abandoned) {
+                    analytics.sessionAbandoned();
+                } else {
+                    analytics.sessionCompleted(state.getScore(), state.getQuestionCount());
+                }
+            }
+            showResult();
+        });
+    }
+
+    public QuizSessionState getState() {
+        return state;
+    }
+
+    // Method to display a question and get user's answer within the time limit.
+    // The future completes with the chosen option index, TIMED_OUT or INPUT_ENDED.
+    private CompletableFuture<Integer> askQuestion(QuizQuestion question) {
+        out.println("\n" + question.getQuestion());
+        int optionCount = question.getOptionCount();
+        for (int i = 0; i < optionCount; i++) {
+            out.println(question.getOption(i));
+        }
+        out.print("Your answer (1-" + optionCount + "): ");
+        out.flush();
+
+        CompletableFuture<Integer> answer = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = QuizTimer.schedule(() -> answer.complete(TIMED_OUT), TIME_LIMIT_PER_QUESTION * 1000L, continuations);
+        answer.whenComplete((result, error) -> {
+            timeout.cancel(false);
+            if (error != null) {
+                return;
+            }
+            if (result == TIMED_OUT) {
+                QUIZ_TIMEOUTS.increment();
+            }
+        });
+        readAnswer(answer, optionCount);
+        return answer;
+    }
+
+    // Wait for a line that holds a valid option number, re-prompting on anything else
+    private void readAnswer(CompletableFuture<Integer> answer, int optionCount) {
+        CompletableFuture<String> line = input.nextLine();
+        answer.whenComplete((result, error) -> line.cancel(false));
+        line.thenAccept(text -> {
+            if (text == null) {
+                answer.complete(INPUT_ENDED);
+                return;
+            }
+            try {
+                int choice = Integer.parseInt(text.trim());
+                if (choice >= 1 && choice <= optionCount) {
+                    answer.complete(choice - 1);
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the prompt below
+            }
+            if (!answer.isDone()) {
+                out.print("Please enter a number between 1 and " + optionCount + ": ");
+                out.flush();
+                readAnswer(answer, optionCount);
+            }
+        });
     }
 
     // Display the result summary at the end of the quiz
     private void showResult() {
-        System.out.println("\n===== Quiz Results =====");
-        System.out.println("Final Score: " + score + "/" + questions.size());
+        out.println("\n===== Quiz Results =====");
+        out.println("Final Score: " + state.getScore() + "/" + state.getQuestionCount());
 
-        System.out.println("\nSummary of your answers:");
-        for (String summary : resultSummary) {
-            System.out.println(summary);
+        out.println("\nSummary of your answers:");
+        for (int i = 0; i < state.getQuestionCount(); i++) {
+            if (!state.isAnswered(i)) {
+                out.println("Question " + (i + 1) + ": Not answered (Time's up)");
+            } else {
+                String question = questions.get(state.getQuestionId(i)).getQuestion();
+                out.println("Question: " + question + " | Your answer: " + (state.isCorrect(i) ? "Correct" : "Incorrect"));
+            }
         }
+        out.flush();
     }
 
-    public static void main(String[] args) {
-        QuizApp quizApp = new QuizApp();
-        quizApp.start();
+    // Usage:
+    //   QuizApp [bankFile]                 console quiz (built-in questions, or drawn from a bank file)
+    //   QuizApp serve [port] [bankFile]    host concurrent quiz sessions over loopback
+    //   QuizApp export <bankFile>          write the built-in questions as a bank file
+    public static void main(String[] args) throws Exception {
+        Metrics.start();
+        if (args.length > 1 && args[0].equals("export")) {
+            QuestionBank builtIn = QuestionBank.defaultBank();
+            List<QuizQuestion> all = new ArrayList<>();
+            for (int i = 0; i < builtIn.size(); i++) {
+                all.add(builtIn.get(i));
+            }
+            MappedQuestionBank.write(Paths.get(args[1]), all);
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("serve")) {
+            QuestionBank bank = args.length > 2 ? MappedQuestionBank.open(Paths.get(args[2])) : QuestionBank.defaultBank();
+            QuizServer server = new QuizServer(bank, args.length > 1 ? Integer.parseInt(args[1]) : 9091);
+            server.start();
+            System.out.println("Quiz server listening on port " + server.getPort());
+            while (true) {
+                Thread.sleep(60_000);
+                System.out.println(server.getAnalytics().snapshot());
+            }
+        }
+
+        LineAnswerSource input = LineAnswerSource.fromStream(System.in);
+        QuizApp quizApp;
+        if (args.length > 0) {
+            QuestionBank bank = MappedQuestionBank.open(Paths.get(args[0]));
+            quizApp = new QuizApp(bank, QuestionSampler.draw(bank, QuizServer.QUESTIONS_PER_SESSION, new SplittableRandom()), input, System.out, null);
+        } else {
+            quizApp = new QuizApp(QuestionBank.defaultBank(), input, System.out);
+        }
+        quizApp.start().join();
     }
 }
-
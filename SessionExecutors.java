@@ -0,0 +1,21 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Executors for the socket servers, which run one blocking task per connected client
+final class SessionExecutors {
+    private SessionExecutors() {
+    }
+
+    // One virtual thread per task where the JDK has them (21+), so idle clients cost no
+    // platform thread; otherwise a cached pool. Looked up reflectively so the sources still
+    // compile on 17.
+    static ExecutorService newPerTaskExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
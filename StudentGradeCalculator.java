@@ -1,8 +1,857 @@
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+// Marks of many students, stored column by column: one int[] per subject.
+// Reading a marks file fills the columns directly, so no object is created per mark.
+class MarksTable {
+    private final int subjects;
+    private String[] studentIds;
+    private int[][] columns;
+    private int rows;
+
+    public MarksTable(int subjects) {
+        this.subjects = subjects;
+        this.studentIds = new String[1024];
+        this.columns = new int[subjects][1024];
+    }
+
+    public int getSubjectCount() {
+        return subjects;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public String getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    public int getMark(int row, int subject) {
+        return columns[subject][row];
+    }
+
+    // The marks of one subject for every student; only the first getRowCount() entries are used
+    public int[] getColumn(int subject) {
+        return columns[subject];
+    }
+
+    // Append a student; marks holds at least one mark per subject
+    public void addRow(String studentId, int[] marks) {
+        if (rows == studentIds.length) {
+            int capacity = rows * 2;
+            studentIds = Arrays.copyOf(studentIds, capacity);
+            for (int s = 0; s < subjects; s++) {
+                columns[s] = Arrays.copyOf(columns[s], capacity);
+            }
+        }
+        studentIds[rows] = studentId;
+        for (int s = 0; s < subjects; s++) {
+            columns[s][rows] = marks[s];
+        }
+        rows++;
+    }
+
+    // Read a CSV file of "studentId,mark1,mark2,..." lines. A first line whose second field is not
+    // a number is taken as a header. The file is parsed straight from a large byte buffer.
+    public static MarksTable read(Path file) throws IOException {
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            return new MarksParser(in).parse();
+        }
+    }
+
+    // Byte-level CSV parser that writes marks directly into the table's columns
+    private static class MarksParser {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 20];
+        private int position;
+        private int limit;
+        private int line = 1;
+
+        MarksParser(InputStream in) {
+            this.in = in;
+        }
+
+        private int next() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private int skipSpaces(int c) throws IOException {
+            while (c == ' ' || c == '\t' || c == '\r') {
+                c = next();
+            }
+            return c;
+        }
+
+        MarksTable parse() throws IOException {
+            MarksTable table = null;
+            byte[] id = new byte[64];
+            int[] marks = new int[16];
+            int c = next();
+            while (c != -1) {
+                // Student ID
+                int idLength = 0;
+                while (c != ',' && c != '\n' && c != -1) {
+                    if (idLength == id.length) {
+                        id = Arrays.copyOf(id, idLength * 2);
+                    }
+                    id[idLength++] = (byte) c;
+                    c = next();
+                }
+
+                // Marks
+                int count = 0;
+                boolean header = false;
+                while (c == ',') {
+                    c = skipSpaces(next());
+                    if (c < '0' || c > '9') {
+                        if (line > 1 || count > 0) {
+                            throw new IOException("Invalid marks on line " + line);
+                        }
+                        header = true;
+                        break;
+                    }
+                    int mark = 0;
+                    while (c >= '0' && c <= '9') {
+                        mark = mark * 10 + (c - '0');
+                        // Checked per digit, so a long run of digits cannot overflow into range
+                        if (mark > 100) {
+                            throw new IOException("Marks must be between 0 and 100 on line " + line);
+                        }
+                        c = next();
+                    }
+                    c = skipSpaces(c);
+                    if (count == marks.length) {
+                        marks = Arrays.copyOf(marks, count * 2);
+                    }
+                    marks[count++] = mark;
+                }
+
+                if (header) {
+                    while (c != '\n' && c != -1) {
+                        c = next();
+                    }
+                } else if (c != '\n' && c != -1) {
+                    throw new IOException("Invalid marks on line " + line);
+                } else if (count > 0 || idLength > 0) {
+                    if (table == null) {
+                        if (count == 0) {
+                            throw new IOException("No marks on line " + line);
+                        }
+                        table = new MarksTable(count);
+                    } else if (count != table.subjects) {
+                        throw new IOException("Expected " + table.subjects + " marks on line " + line + " but found " + count);
+                    }
+                    table.addRow(new String(id, 0, idLength, StandardCharsets.UTF_8).trim(), marks);
+                }
+                line++;
+                c = next();
+            }
+            if (table == null) {
+                throw new IOException("The marks file has no students");
+            }
+            return table;
+        }
+    }
+}
+
+// Computes total, average and grade for every row of a MarksTable, splitting the rows
+// across the fork/join pool. Each row's total is summed in a local and then stored, so the
+// output arrays can be reused between runs.
+class GradeBatch extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final int ROWS_PER_TASK = 16 * 1024;
+
+    private final MarksTable table;
+    private final int[] totals;
+    private final char[] grades;
+    private final int from;
+    private final int to;
+
+    private GradeBatch(MarksTable table, int[] totals, char[] grades, int from, int to) {
+        this.table = table;
+        this.totals = totals;
+        this.grades = grades;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Fill totals and grades for every student in the table
+    public static void compute(MarksTable table, int[] totals, char[] grades) {
+        ForkJoinPool.commonPool().invoke(new GradeBatch(table, totals, grades, 0, table.getRowCount()));
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > ROWS_PER_TASK) {
+            int middle = (from + to) >>> 1;
+            invokeAll(new GradeBatch(table, totals, grades, from, middle), new GradeBatch(table, totals, grades, middle, to));
+            return;
+        }
+        int subjects = table.getSubjectCount();
+        int[][] columns = new int[subjects][];
+        for (int s = 0; s < subjects; s++) {
+            columns[s] = table.getColumn(s);
+        }
+        for (int row = from; row < to; row++) {
+            int total = 0;
+            for (int s = 0; s < subjects; s++) {
+                total += columns[s][row];
+            }
+            totals[row] = total;
+            grades[row] = StudentGradeCalculator.gradeFor((double) total / subjects);
+        }
+    }
+
+    // Write "studentId,total,average,grade,rank" lines
+    public static void write(Path file, MarksTable table, int[] totals, char[] grades, int[] ranks) throws IOException {
+        int subjects = table.getSubjectCount();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file.toFile()), 1 << 20)) {
+            out.write("studentId,total,average,grade,rank\n".getBytes(StandardCharsets.US_ASCII));
+            // Lines are gathered into chunks so the stream sees a few large writes
+            StringBuilder chunk = new StringBuilder(1 << 16);
+            for (int row = 0; row < table.getRowCount(); row++) {
+                // Average with two decimals, rounded the same way as the interactive "%.2f"
+                long hundredths = Math.round(totals[row] * 100.0 / subjects);
+                chunk.append(table.getStudentId(row)).append(',').append(totals[row]).append(',')
+                        .append(hundredths / 100).append('.');
+                if (hundredths % 100 < 10) {
+                    chunk.append('0');
+                }
+                chunk.append(hundredths % 100).append(',').append(grades[row]).append(',').append(ranks[row]).append('\n');
+                if (chunk.length() >= 1 << 16) {
+                    out.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+                    chunk.setLength(0);
+                }
+            }
+            out.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
+
+// How GradeStatistics spreads its two passes over the rows
+enum StatisticsKernel {
+    // Plain loops on the calling thread
+    SCALAR,
+    // Row ranges split recursively in the fork/join pool
+    FORK_JOIN,
+    // Fixed-size row chunks mapped and reduced by a parallel IntStream
+    PARALLEL_STREAM
+}
+
+// Cohort statistics over a graded MarksTable: mean and standard deviation of the average
+// percentage, percentiles, a histogram of marks per subject, and each student's rank.
+// Marks and totals are small bounded integers, so everything is derived from counting
+// histograms: one pass over the mark columns builds the histograms and the sums, and a second
+// pass over the totals assigns ranks from the cumulative histogram, with no sorting. Both passes
+// are written once as kernels over a row range (histogramRange and rankRange); the
+// StatisticsKernel decides whether they run on the calling thread or over row ranges in parallel,
+// merging per-range partial results. The kernels are plain indexed loops over int[] columns that
+// the JIT can unroll and vectorize.
+class GradeStatistics {
+    private static final int ROWS_PER_TASK = 16 * 1024;
+
+    private final int students;
+    private final int subjects;
+    private final double mean;
+    private final double standardDeviation;
+    private final long[] totalHistogram;
+    private final long[][] subjectHistograms;
+    private final int[] ranks;
+
+    private GradeStatistics(int students, int subjects, double mean, double standardDeviation,
+                            long[] totalHistogram, long[][] subjectHistograms, int[] ranks) {
+        this.students = students;
+        this.subjects = subjects;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+        this.totalHistogram = totalHistogram;
+        this.subjectHistograms = subjectHistograms;
+        this.ranks = ranks;
+    }
+
+    // Compute statistics; totals must already hold each student's total marks
+    public static GradeStatistics compute(MarksTable table, int[] totals, StatisticsKernel kernel) {
+        int rows = table.getRowCount();
+        int subjects = table.getSubjectCount();
+        Partial partial;
+        switch (kernel) {
+            case SCALAR:
+                partial = histogramRange(table, totals, 0, rows);
+                break;
+            case FORK_JOIN:
+                partial = ForkJoinPool.commonPool().invoke(new HistogramPass(table, totals, 0, rows));
+                break;
+            default:
+                partial = IntStream.range(0, chunkCount(rows)).parallel()
+                        .mapToObj(chunk -> histogramRange(table, totals, chunkStart(chunk), chunkEnd(chunk, rows)))
+                        .reduce(Partial::merge)
+                        .orElseGet(() -> new Partial(subjects));
+        }
+
+        double meanTotal = (double) partial.sum / rows;
+        double variance = Math.max(0, (double) partial.sumOfSquares / rows - meanTotal * meanTotal);
+
+        // higher[t] = number of students whose total is above t
+        long[] higher = new long[partial.totalHistogram.length + 1];
+        for (int t = partial.totalHistogram.length - 1; t >= 0; t--) {
+            higher[t] = higher[t + 1] + partial.totalHistogram[t];
+        }
+        int[] ranks = new int[rows];
+        switch (kernel) {
+            case SCALAR:
+                rankRange(totals, higher, ranks, 0, rows);
+                break;
+            case FORK_JOIN:
+                ForkJoinPool.commonPool().invoke(new RankPass(totals, higher, ranks, 0, rows));
+                break;
+            default:
+                IntStream.range(0, chunkCount(rows)).parallel()
+                        .forEach(chunk -> rankRange(totals, higher, ranks, chunkStart(chunk), chunkEnd(chunk, rows)));
+        }
+        return new GradeStatistics(rows, subjects, meanTotal / subjects, Math.sqrt(variance) / subjects,
+                partial.totalHistogram, partial.subjectHistograms, ranks);
+    }
+
+    private static int chunkCount(int rows) {
+        return (rows + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+    }
+
+    private static int chunkStart(int chunk) {
+        return chunk * ROWS_PER_TASK;
+    }
+
+    private static int chunkEnd(int chunk, int rows) {
+        return Math.min(rows, (chunk + 1) * ROWS_PER_TASK);
+    }
+
+    // First pass over rows [from, to): mark histograms per subject, the total histogram and the sums
+    private static Partial histogramRange(MarksTable table, int[] totals, int from, int to) {
+        Partial partial = new Partial(table.getSubjectCount());
+        for (int s = 0; s < table.getSubjectCount(); s++) {
+            int[] column = table.getColumn(s);
+            long[] histogram = partial.subjectHistograms[s];
+            for (int row = from; row < to; row++) {
+                histogram[column[row]]++;
+            }
+        }
+        long sum = 0;
+        long sumOfSquares = 0;
+        for (int row = from; row < to; row++) {
+            int total = totals[row];
+            sum += total;
+            sumOfSquares += (long) total * total;
+            partial.totalHistogram[total]++;
+        }
+        partial.sum = sum;
+        partial.sumOfSquares = sumOfSquares;
+        return partial;
+    }
+
+    // Second pass over rows [from, to): a student's rank is one more than the number of higher totals
+    private static void rankRange(int[] totals, long[] higher, int[] ranks, int from, int to) {
+        for (int row = from; row < to; row++) {
+            ranks[row] = (int) (1 + higher[totals[row] + 1]);
+        }
+    }
+
+    public int getStudentCount() {
+        return students;
+    }
+
+    // Mean of the students' average percentages
+    public double getMean() {
+        return mean;
+    }
+
+    // Population standard deviation of the students' average percentages
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    // Average percentage at the given percentile (nearest rank, fraction between 0 and 1)
+    public double getPercentile(double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * students));
+        long seen = 0;
+        for (int total = 0; total < totalHistogram.length; total++) {
+            seen += totalHistogram[total];
+            if (seen >= rank) {
+                return (double) total / subjects;
+            }
+        }
+        return 100;
+    }
+
+    // Number of students with each mark (0-100) in a subject
+    public long[] getSubjectHistogram(int subject) {
+        return subjectHistograms[subject].clone();
+    }
+
+    // 1 for the highest total; students with equal totals share a rank
+    public int getRank(int row) {
+        return ranks[row];
+    }
+
+    public int[] getRanks() {
+        return ranks;
+    }
+
+    // Histograms and sums for a range of rows
+    private static class Partial {
+        long sum;
+        long sumOfSquares;
+        long[] totalHistogram;
+        long[][] subjectHistograms;
+
+        Partial(int subjects) {
+            totalHistogram = new long[subjects * 100 + 1];
+            subjectHistograms = new long[subjects][101];
+        }
+
+        Partial merge(Partial other) {
+            sum += other.sum;
+            sumOfSquares += other.sumOfSquares;
+            for (int t = 0; t < totalHistogram.length; t++) {
+                totalHistogram[t] += other.totalHistogram[t];
+            }
+            for (int s = 0; s < subjectHistograms.length; s++) {
+                for (int mark = 0; mark <= 100; mark++) {
+                    subjectHistograms[s][mark] += other.subjectHistograms[s][mark];
+                }
+            }
+            return this;
+        }
+    }
+
+    private static class HistogramPass extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final MarksTable table;
+        private final int[] totals;
+        private final int from;
+        private final int to;
+
+        HistogramPass(MarksTable table, int[] totals, int from, int to) {
+            this.table = table;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                HistogramPass left = new HistogramPass(table, totals, from, middle);
+                left.fork();
+                Partial right = new HistogramPass(table, totals, middle, to).compute();
+                return left.join().merge(right);
+            }
+            return histogramRange(table, totals, from, to);
+        }
+    }
+
+    private static class RankPass extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] totals;
+        private final long[] higher;
+        private final int[] ranks;
+        private final int from;
+        private final int to;
+
+        RankPass(int[] totals, long[] higher, int[] ranks, int from, int to) {
+            this.totals = totals;
+            this.higher = higher;
+            this.ranks = ranks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RankPass(totals, higher, ranks, from, middle), new RankPass(totals, higher, ranks, middle, to));
+                return;
+            }
+            rankRange(totals, higher, ranks, from, to);
+        }
+    }
+}
+
+// A student's grade as seen at one moment in a GradeStore
+class StudentGradeSnapshot {
+    private final String studentId;
+    private final int totalMarks;
+    private final int subjectsMarked;
+    private final char grade;
+
+    public StudentGradeSnapshot(String studentId, int totalMarks, int subjectsMarked, char grade) {
+        this.studentId = studentId;
+        this.totalMarks = totalMarks;
+        this.subjectsMarked = subjectsMarked;
+        this.grade = grade;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public int getTotalMarks() {
+        return totalMarks;
+    }
+
+    public int getSubjectsMarked() {
+        return subjectsMarked;
+    }
+
+    // Average over the subjects marked so far
+    public double getAveragePercentage() {
+        return subjectsMarked == 0 ? 0 : (double) totalMarks / subjectsMarked;
+    }
+
+    // GradeStore.NO_GRADE until the first mark arrives
+    public char getGrade() {
+        return grade;
+    }
+}
+
+// Cohort aggregates as seen at one moment in a GradeStore
+class CohortGradeSnapshot {
+    private final int students;
+    private final long marksRecorded;
+    private final long totalMarks;
+    private final long[] gradeCounts;
+
+    public CohortGradeSnapshot(int students, long marksRecorded, long totalMarks, long[] gradeCounts) {
+        this.students = students;
+        this.marksRecorded = marksRecorded;
+        this.totalMarks = totalMarks;
+        this.gradeCounts = gradeCounts;
+    }
+
+    public int getStudentCount() {
+        return students;
+    }
+
+    public long getMarksRecorded() {
+        return marksRecorded;
+    }
+
+    // Mean of all marks recorded so far
+    public double getMeanMark() {
+        return marksRecorded == 0 ? 0 : (double) totalMarks / marksRecorded;
+    }
+
+    // Number of students currently holding a grade (A-F)
+    public long getGradeCount(char grade) {
+        int index = GradeStore.gradeIndex(grade);
+        return index < 0 ? 0 : gradeCounts[index];
+    }
+}
+
+// Marks that arrive one at a time over the term. Each student's running total, the number of
+// subjects marked and the current grade are kept up to date, as are the cohort's grade counts,
+// so inserting or correcting a mark is O(1) and only re-grades the student it belongs to.
+// Writers take the write lock of a StampedLock; readers use optimistic reads and only fall back
+// to the read lock when a write raced with them, so snapshots are always consistent.
+class GradeStore {
+    public static final char NO_GRADE = '-';
+    private static final int ABSENT = -1;
+    private static final char[] GRADES = {'A', 'B', 'C', 'D', 'E', 'F'};
+
+    private final int subjects;
+    private final StampedLock lock = new StampedLock();
+    private final ConcurrentHashMap<String, Integer> rowsById = new ConcurrentHashMap<>();
+    private String[] studentIds = new String[1024];
+    private int[] marks;
+    private int[] totals = new int[1024];
+    private int[] marked = new int[1024];
+    private char[] grades = new char[1024];
+    private int rows;
+    private long marksRecorded;
+    private long totalMarks;
+    private final long[] gradeCounts = new long[GRADES.length];
+
+    public GradeStore(int subjects) {
+        this.subjects = subjects;
+        this.marks = new int[1024 * subjects];
+        Arrays.fill(marks, ABSENT);
+    }
+
+    // Start a store from the marks of a batch file
+    public static GradeStore fromTable(MarksTable table) {
+        GradeStore store = new GradeStore(table.getSubjectCount());
+        for (int row = 0; row < table.getRowCount(); row++) {
+            for (int s = 0; s < table.getSubjectCount(); s++) {
+                store.setMark(table.getStudentId(row), s, table.getMark(row, s));
+            }
+        }
+        return store;
+    }
+
+    public int getSubjectCount() {
+        return subjects;
+    }
+
+    static int gradeIndex(char grade) {
+        for (int i = 0; i < GRADES.length; i++) {
+            if (GRADES[i] == grade) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Record or correct a student's mark in a subject and return the student's new grade
+    public char setMark(String studentId, int subject, int mark) {
+        if (subject < 0 || subject >= subjects) {
+            throw new IllegalArgumentException("No such subject: " + (subject + 1));
+        }
+        if (mark < 0 || mark > 100) {
+            throw new IllegalArgumentException("Marks must be between 0 and 100: " + mark);
+        }
+        long stamp = lock.writeLock();
+        try {
+            return update(rowFor(studentId), subject, mark);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Withdraw a mark recorded by mistake and return the student's new grade
+    public char clearMark(String studentId, int subject) {
+        long stamp = lock.writeLock();
+        try {
+            Integer row = rowsById.get(studentId);
+            if (row == null || subject < 0 || subject >= subjects) {
+                return NO_GRADE;
+            }
+            return update(row, subject, ABSENT);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Called with the write lock held
+    private char update(int row, int subject, int mark) {
+        int slot = row * subjects + subject;
+        int previous = marks[slot];
+        if (previous != ABSENT) {
+            totals[row] -= previous;
+            marked[row]--;
+            marksRecorded--;
+            totalMarks -= previous;
+        }
+        if (mark != ABSENT) {
+            totals[row] += mark;
+            marked[row]++;
+            marksRecorded++;
+            totalMarks += mark;
+        }
+        marks[slot] = mark;
+
+        char grade = marked[row] == 0 ? NO_GRADE
+                : StudentGradeCalculator.gradeFor((double) totals[row] / marked[row]);
+        if (grade != grades[row]) {
+            if (grades[row] != NO_GRADE) {
+                gradeCounts[gradeIndex(grades[row])]--;
+            }
+            if (grade != NO_GRADE) {
+                gradeCounts[gradeIndex(grade)]++;
+            }
+            grades[row] = grade;
+        }
+        return grade;
+    }
+
+    // Called with the write lock held
+    private int rowFor(String studentId) {
+        Integer existing = rowsById.get(studentId);
+        if (existing != null) {
+            return existing;
+        }
+        if (rows == studentIds.length) {
+            int capacity = rows * 2;
+            studentIds = Arrays.copyOf(studentIds, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            marked = Arrays.copyOf(marked, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+            int[] grown = Arrays.copyOf(marks, capacity * subjects);
+            Arrays.fill(grown, rows * subjects, grown.length, ABSENT);
+            marks = grown;
+        }
+        int row = rows++;
+        studentIds[row] = studentId;
+        grades[row] = NO_GRADE;
+        rowsById.put(studentId, row);
+        return row;
+    }
+
+    // A student's current grade, or null for an unknown student
+    public StudentGradeSnapshot getStudent(String studentId) {
+        Integer row = rowsById.get(studentId);
+        if (row == null) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        StudentGradeSnapshot snapshot = readStudent(row);
+        if (snapshot == null || !lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                snapshot = readStudent(row);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return snapshot;
+    }
+
+    // May see a half-finished write when called optimistically; the caller validates the stamp
+    private StudentGradeSnapshot readStudent(int row) {
+        String[] studentIds = this.studentIds;
+        int[] totals = this.totals;
+        int[] marked = this.marked;
+        char[] grades = this.grades;
+        if (row >= studentIds.length || row >= totals.length || row >= marked.length || row >= grades.length) {
+            return null;
+        }
+        return new StudentGradeSnapshot(studentIds[row], totals[row], marked[row], grades[row]);
+    }
+
+    // A student's mark in a subject, or -1 if it has not been recorded
+    public int getMark(String studentId, int subject) {
+        Integer row = rowsById.get(studentId);
+        if (row == null || subject < 0 || subject >= subjects) {
+            return ABSENT;
+        }
+        long stamp = lock.tryOptimisticRead();
+        int[] marks = this.marks;
+        int slot = row * subjects + subject;
+        int mark = slot < marks.length ? marks[slot] : ABSENT;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                mark = this.marks[slot];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return mark;
+    }
+
+    // The cohort aggregates, all taken at the same moment
+    public CohortGradeSnapshot snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        CohortGradeSnapshot snapshot = readCohort();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                snapshot = readCohort();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return snapshot;
+    }
+
+    private CohortGradeSnapshot readCohort() {
+        return new CohortGradeSnapshot(rows, marksRecorded, totalMarks, gradeCounts.clone());
+    }
+}
 
 public class StudentGradeCalculator {
 
-    public static void main(String[] args) {
+    // Determine the grade for an average percentage
+    static char gradeFor(double averagePercentage) {
+        if (averagePercentage >= 90) {
+            return 'A';
+        } else if (averagePercentage >= 80) {
+            return 'B';
+        } else if (averagePercentage >= 70) {
+            return 'C';
+        } else if (averagePercentage >= 60) {
+            return 'D';
+        } else if (averagePercentage >= 50) {
+            return 'E';
+        } else {
+            return 'F'; // Fail
+        }
+    }
+
+    // Batch mode: grade every student in a marks file and write the results to another file
+    private static void runBatch(Path input, Path output) throws IOException {
+        long start = System.nanoTime();
+        MarksTable table = MarksTable.read(input);
+        int[] totals = new int[table.getRowCount()];
+        char[] grades = new char[table.getRowCount()];
+        GradeBatch.compute(table, totals, grades);
+        GradeStatistics statistics = GradeStatistics.compute(table, totals, StatisticsKernel.FORK_JOIN);
+        GradeBatch.write(output, table, totals, grades, statistics.getRanks());
+        System.out.printf("Graded %d students in %d subjects in %.2f s%n",
+                table.getRowCount(), table.getSubjectCount(), (System.nanoTime() - start) / 1e9);
+        System.out.printf("Mean: %.2f%%  Std dev: %.2f  Median: %.2f%%  90th percentile: %.2f%%  99th percentile: %.2f%%%n",
+                statistics.getMean(), statistics.getStandardDeviation(), statistics.getPercentile(0.50),
+                statistics.getPercentile(0.90), statistics.getPercentile(0.99));
+    }
+
+    // Update mode: start from a marks file and apply "studentId subject mark" lines from the input
+    // as they arrive, printing the student's new grade after each one
+    private static void runUpdates(Path marksFile) throws IOException {
+        GradeStore store = GradeStore.fromTable(MarksTable.read(marksFile));
+        System.out.println("Loaded " + store.snapshot().getStudentCount() + " students. Enter updates as: studentId subject mark");
+        Scanner scanner = new Scanner(System.in);
+        while (scanner.hasNextLine()) {
+            String[] parts = scanner.nextLine().trim().split("\\s+");
+            if (parts.length != 3) {
+                continue;
+            }
+            try {
+                store.setMark(parts[0], Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid update: " + e.getMessage());
+                continue;
+            }
+            StudentGradeSnapshot student = store.getStudent(parts[0]);
+            System.out.printf("%s: total %d, average %.2f%%, grade %c%n", student.getStudentId(),
+                    student.getTotalMarks(), student.getAveragePercentage(), student.getGrade());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--batch")) {
+            runBatch(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        if (args.length == 2 && args[0].equals("--update")) {
+            runUpdates(Paths.get(args[1]));
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         // Ask the user for the number of subjects
@@ -32,20 +881,7 @@ public class StudentGradeCalculator {
         double averagePercentage = (double) totalMarks / numSubjects;
 
         // Determine the grade
-        char grade;
-        if (averagePercentage >= 90) {
-            grade = 'A';
-        } else if (averagePercentage >= 80) {
-            grade = 'B';
-        } else if (averagePercentage >= 70) {
-            grade = 'C';
-        } else if (averagePercentage >= 60) {
-            grade = 'D';
-        } else if (averagePercentage >= 50) {
-            grade = 'E';
-        } else {
-            grade = 'F'; // Fail
-        }
+        char grade = gradeFor(averagePercentage);
 
         // Display the total marks, average percentage, and grade
         System.out.println("\n===== Results =====");
@@ -56,4 +892,3 @@ public class StudentGradeCalculator {
         scanner.close();
     }
 }
-